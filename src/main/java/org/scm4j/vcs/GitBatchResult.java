@@ -0,0 +1,53 @@
+package org.scm4j.vcs;
+
+import org.scm4j.vcs.api.exceptions.EVCSException;
+
+/**
+ * Result of a single item of a batch operation, e.g. {@link GitVCS#createTags(String, java.util.Map, String)}. Failure
+ * of an item does not affect other items of the batch
+ */
+public class GitBatchResult<T> {
+
+	private final T result;
+	private final EVCSException exception;
+
+	private GitBatchResult(T result, EVCSException exception) {
+		this.result = result;
+		this.exception = exception;
+	}
+
+	static <T> GitBatchResult<T> succeeded(T result) {
+		return new GitBatchResult<>(result, null);
+	}
+
+	static <T> GitBatchResult<T> failed(EVCSException exception) {
+		return new GitBatchResult<>(null, exception);
+	}
+
+	public boolean isSucceeded() {
+		return exception == null;
+	}
+
+	/**
+	 * @return result of the item
+	 * @throws EVCSException exception the item is failed with
+	 */
+	public T get() {
+		if (exception != null) {
+			throw exception;
+		}
+		return result;
+	}
+
+	/**
+	 * @return exception the item is failed with or null if succeeded
+	 */
+	public EVCSException getException() {
+		return exception;
+	}
+
+	@Override
+	public String toString() {
+		return "GitBatchResult [" + (exception == null ? "result=" + result : "exception=" + exception) + "]";
+	}
+}
@@ -0,0 +1,91 @@
+package org.scm4j.vcs;
+
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.diff.RenameDetector;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.Repository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Page of changes between branches. Unified diff of each entry is formatted on demand using one formatter shared by
+ * all entries. Holds its working copy locked and the repository open until closed. No repository lock is held so the
+ * diff could be used and closed by any thread.
+ */
+public class GitBranchesDiff implements AutoCloseable {
+
+	private final ByteArrayOutputStream out = new ByteArrayOutputStream();
+	private final DiffFormatter formatter = new DiffFormatter(out);
+	private final List<GitDiffEntry> entries = new ArrayList<>();
+	private final int totalCount;
+	private final List<AutoCloseable> resources;
+
+	GitBranchesDiff(GitVCS vcs, Repository gitRepo, ObjectId oldTreeId, ObjectId newTreeId, int offset, int limit,
+			List<AutoCloseable> resources) throws IOException {
+		this.resources = resources;
+		List<DiffEntry> diffs;
+		try {
+			formatter.setRepository(gitRepo);
+			if (vcs.isDetectRenames()) {
+				formatter.setDetectRenames(true);
+				RenameDetector renameDetector = formatter.getRenameDetector();
+				renameDetector.setRenameLimit(vcs.getRenameLimit());
+				renameDetector.setRenameScore(vcs.getRenameScore());
+			}
+			diffs = formatter.scan(oldTreeId, newTreeId);
+		} catch (IOException | RuntimeException e) {
+			// resources are closed by the caller
+			formatter.close();
+			throw e;
+		}
+		totalCount = diffs.size();
+		int from = Math.min(Math.max(offset, 0), totalCount);
+		int to = limit > 0 ? Math.min(from + limit, totalCount) : totalCount;
+		for (DiffEntry diffEntry : diffs.subList(from, to)) {
+			entries.add(new GitDiffEntry(this, diffEntry, vcs.gitChangeTypeToVCSChangeType(diffEntry.getChangeType())));
+		}
+	}
+
+	/**
+	 * @return total count of changed files regardless of paging
+	 */
+	public int getTotalCount() {
+		return totalCount;
+	}
+
+	public List<GitDiffEntry> getEntries() {
+		return Collections.unmodifiableList(entries);
+	}
+
+	synchronized String format(DiffEntry diffEntry) {
+		try {
+			out.reset();
+			formatter.format(diffEntry);
+			formatter.flush();
+			return out.toString("UTF-8");
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	@Override
+	public void close() {
+		formatter.close();
+		Exception closeException = null;
+		for (AutoCloseable resource : resources) {
+			try {
+				resource.close();
+			} catch (Exception e) {
+				closeException = e;
+			}
+		}
+		if (closeException != null) {
+			throw new RuntimeException(closeException);
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package org.scm4j.vcs;
+
+/**
+ * Defines what is fetched when a fresh working copy is cloned and then synchronized with the remote repository
+ */
+public enum GitCloneMode {
+
+	/**
+	 * All branches and tags are cloned and synchronized
+	 */
+	FULL,
+
+	/**
+	 * Only master branch and tags of its history are cloned. Other branches are fetched on first access and then
+	 * synchronized as well. Commits which are not found locally cause all branches to be fetched
+	 */
+	SINGLE_BRANCH,
+
+	/**
+	 * All branches are cloned and synchronized, tags are fetched on demand by tag operations only
+	 */
+	NO_TAGS
+}
@@ -0,0 +1,343 @@
+package org.scm4j.vcs;
+
+import org.eclipse.jgit.lib.AnyObjectId;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.ObjectIdOwnerMap;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Compact in-memory commit graph of a repository: parents, commit time and generation number of each known commit are
+ * kept in primitive arrays indexed by commit position. Commits are added by {@link #update(Repository, AnyObjectId)}
+ * which parses headers of unknown commits only, so the graph is extended incrementally as branches move. Commits are
+ * immutable so known commits are never re-read. Ancestry, merge base and range queries are answered without parsing
+ * commit objects.
+ */
+class GitCommitGraph {
+
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final int PARENT1 = 1;
+	private static final int PARENT2 = 2;
+	private static final int STALE = 4;
+	private static final int RESULT = 8;
+
+	private final ObjectIdOwnerMap<Node> nodes = new ObjectIdOwnerMap<>();
+	// node of commit i, the node is the commit id itself
+	private Node[] nodesByIndex = new Node[INITIAL_CAPACITY];
+	private int[] commitTimes = new int[INITIAL_CAPACITY];
+	// generation is 1 for root commits and max generation of parents + 1 for others
+	private int[] generations = new int[INITIAL_CAPACITY];
+	// parents of commit i are parents[parentsStart[i]] .. parents[parentsStart[i + 1] - 1]
+	private int[] parentsStart = new int[INITIAL_CAPACITY + 1];
+	private int[] parents = new int[INITIAL_CAPACITY];
+	private int size;
+
+	/**
+	 * Adds {@code tip} and all its unknown ancestors to the graph
+	 */
+	public synchronized void update(Repository gitRepo, AnyObjectId tip) throws IOException {
+		if (nodes.contains(tip)) {
+			return;
+		}
+		try (RevWalk rw = new RevWalk(gitRepo)) {
+			rw.setRetainBody(false);
+			// commits are added after their parents so generations are computed at once
+			Deque<RevCommit> stack = new ArrayDeque<>();
+			stack.push(rw.parseCommit(tip));
+			while (!stack.isEmpty()) {
+				RevCommit commit = stack.peek();
+				if (nodes.contains(commit)) {
+					stack.pop();
+					continue;
+				}
+				boolean parentsKnown = true;
+				for (RevCommit parent : commit.getParents()) {
+					if (!nodes.contains(parent)) {
+						rw.parseHeaders(parent);
+						stack.push(parent);
+						parentsKnown = false;
+					}
+				}
+				if (parentsKnown) {
+					stack.pop();
+					add(commit);
+				}
+			}
+		}
+	}
+
+	public synchronized boolean contains(AnyObjectId id) {
+		return nodes.contains(id);
+	}
+
+	public synchronized ObjectId[] getParents(AnyObjectId id) {
+		int i = indexOf(id);
+		ObjectId[] res = new ObjectId[parentsStart[i + 1] - parentsStart[i]];
+		for (int p = 0; p < res.length; p++) {
+			res[p] = nodesByIndex[parents[parentsStart[i] + p]];
+		}
+		return res;
+	}
+
+	/**
+	 * @return root commit reached by following first parents from {@code id}
+	 */
+	public synchronized ObjectId getRoot(AnyObjectId id) {
+		int i = indexOf(id);
+		while (parentsStart[i + 1] > parentsStart[i]) {
+			i = parents[parentsStart[i]];
+		}
+		return nodesByIndex[i];
+	}
+
+	/**
+	 * @return true if {@code ancestor} is reachable from {@code commit} or equals to it. Both commits must be added to
+	 * the graph
+	 */
+	public synchronized boolean isAncestor(AnyObjectId ancestor, AnyObjectId commit) {
+		int ancestorIndex = indexOf(ancestor);
+		int commitIndex = indexOf(commit);
+		int ancestorGeneration = generations[ancestorIndex];
+		boolean[] seen = new boolean[size];
+		Deque<Integer> queue = new ArrayDeque<>();
+		queue.add(commitIndex);
+		seen[commitIndex] = true;
+		while (!queue.isEmpty()) {
+			int i = queue.poll();
+			if (i == ancestorIndex) {
+				return true;
+			}
+			for (int p = parentsStart[i]; p < parentsStart[i + 1]; p++) {
+				int parent = parents[p];
+				// commits of lower generation can not reach the ancestor
+				if (!seen[parent] && generations[parent] >= ancestorGeneration) {
+					seen[parent] = true;
+					queue.add(parent);
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * @return best common ancestor of the commits or null if histories are unrelated. Both commits must be added to the
+	 * graph
+	 */
+	public synchronized ObjectId getMergeBase(AnyObjectId commit1, AnyObjectId commit2) {
+		int[] flags = new int[size];
+		// commits are queued once: all children of a commit have greater generations so they are processed before it
+		// and its flags are final when it is polled
+		boolean[] queued = new boolean[size];
+		PriorityQueue<Integer> queue = new PriorityQueue<>(getGenerationDescComparator());
+		int index1 = indexOf(commit1);
+		int index2 = indexOf(commit2);
+		flags[index1] |= PARENT1;
+		flags[index2] |= PARENT2;
+		queue.add(index1);
+		queued[index1] = true;
+		if (index2 != index1) {
+			queue.add(index2);
+			queued[index2] = true;
+		}
+		int nonStaleCount = queue.size();
+		List<Integer> results = new ArrayList<>();
+		while (nonStaleCount > 0) {
+			int i = queue.poll();
+			if ((flags[i] & STALE) == 0) {
+				nonStaleCount--;
+			}
+			int f = flags[i] & (PARENT1 | PARENT2 | STALE);
+			if ((f & (PARENT1 | PARENT2)) == (PARENT1 | PARENT2) && (f & STALE) == 0) {
+				if ((flags[i] & RESULT) == 0) {
+					flags[i] |= RESULT;
+					results.add(i);
+				}
+				// ancestors of a common ancestor are not the best ones
+				f |= STALE;
+			}
+			for (int p = parentsStart[i]; p < parentsStart[i + 1]; p++) {
+				int parent = parents[p];
+				if ((flags[parent] & f) == f) {
+					continue;
+				}
+				boolean wasStale = (flags[parent] & STALE) != 0;
+				flags[parent] |= f;
+				if (!queued[parent]) {
+					queued[parent] = true;
+					queue.add(parent);
+					if ((flags[parent] & STALE) == 0) {
+						nonStaleCount++;
+					}
+				} else if (!wasStale && (flags[parent] & STALE) != 0) {
+					nonStaleCount--;
+				}
+			}
+		}
+		ObjectId best = null;
+		int bestGeneration = 0;
+		for (int i : results) {
+			if ((flags[i] & STALE) == 0 && generations[i] > bestGeneration) {
+				best = nodesByIndex[i];
+				bestGeneration = generations[i];
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * @return commits reachable from {@code end} and not reachable from {@code excluded}, ordered as a {@link RevWalk}
+	 * emits them: most recent commit time first, children before parents for equal times. Ancestors of
+	 * {@code excluded} are visited down to the generation of the oldest commit of the range only. All commits must be
+	 * added to the graph
+	 */
+	public synchronized List<ObjectId> getRange(AnyObjectId end, AnyObjectId... excluded) {
+		// commits are visited from the greatest generation so all children of a commit are visited before it and it is
+		// known if the commit is reachable from excluded ones. The walk stops once only excluded commits are queued
+		int[] flags = new int[size];
+		PriorityQueue<Integer> queue = new PriorityQueue<>(getGenerationDescComparator());
+		int endIndex = indexOf(end);
+		flags[endIndex] = PARENT1;
+		queue.add(endIndex);
+		for (AnyObjectId id : excluded) {
+			int i = indexOf(id);
+			if ((flags[i] & STALE) == 0) {
+				if (flags[i] == 0) {
+					queue.add(i);
+				}
+				flags[i] |= STALE;
+			}
+		}
+		int interestingCount = (flags[endIndex] & STALE) == 0 ? 1 : 0;
+		while (interestingCount > 0) {
+			int i = queue.poll();
+			if ((flags[i] & STALE) != 0) {
+				for (int p = parentsStart[i]; p < parentsStart[i + 1]; p++) {
+					int parent = parents[p];
+					if (flags[parent] == 0) {
+						queue.add(parent);
+					} else if ((flags[parent] & STALE) == 0) {
+						interestingCount--;
+					}
+					flags[parent] |= STALE;
+				}
+				continue;
+			}
+			interestingCount--;
+			flags[i] |= RESULT;
+			for (int p = parentsStart[i]; p < parentsStart[i + 1]; p++) {
+				int parent = parents[p];
+				if (flags[parent] == 0) {
+					flags[parent] = PARENT1;
+					queue.add(parent);
+					interestingCount++;
+				}
+			}
+		}
+
+		// range commits are emitted in commit time order like RevWalk does. Only range commits are queued
+		List<ObjectId> res = new ArrayList<>();
+		if ((flags[endIndex] & RESULT) == 0) {
+			return res;
+		}
+		PriorityQueue<Integer> timeQueue = new PriorityQueue<>(new Comparator<Integer>() {
+			@Override
+			public int compare(Integer i1, Integer i2) {
+				int cmp = Integer.compare(commitTimes[i2], commitTimes[i1]);
+				return cmp != 0 ? cmp : Integer.compare(generations[i2], generations[i1]);
+			}
+		});
+		flags[endIndex] |= PARENT2;
+		timeQueue.add(endIndex);
+		while (!timeQueue.isEmpty()) {
+			int i = timeQueue.poll();
+			res.add(nodesByIndex[i]);
+			for (int p = parentsStart[i]; p < parentsStart[i + 1]; p++) {
+				int parent = parents[p];
+				if ((flags[parent] & (RESULT | PARENT2)) == RESULT) {
+					flags[parent] |= PARENT2;
+					timeQueue.add(parent);
+				}
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * @return comparator of commit indexes which orders commits of greater generations first
+	 */
+	private Comparator<Integer> getGenerationDescComparator() {
+		return new Comparator<Integer>() {
+			@Override
+			public int compare(Integer i1, Integer i2) {
+				return Integer.compare(generations[i2], generations[i1]);
+			}
+		};
+	}
+
+	synchronized int size() {
+		return size;
+	}
+
+	private int indexOf(AnyObjectId id) {
+		Node node = nodes.get(id);
+		if (node == null) {
+			throw new IllegalArgumentException("Commit is not added to the graph: " + id.name());
+		}
+		return node.index;
+	}
+
+	private void add(RevCommit commit) {
+		RevCommit[] commitParents = commit.getParents();
+		ensureCapacity(commitParents.length);
+		int index = size;
+		int generation = 0;
+		int start = parentsStart[index];
+		for (int p = 0; p < commitParents.length; p++) {
+			int parentIndex = nodes.get(commitParents[p]).index;
+			parents[start + p] = parentIndex;
+			generation = Math.max(generation, generations[parentIndex]);
+		}
+		parentsStart[index + 1] = start + commitParents.length;
+		Node node = new Node(commit, index);
+		nodesByIndex[index] = node;
+		commitTimes[index] = commit.getCommitTime();
+		generations[index] = generation + 1;
+		nodes.add(node);
+		size++;
+	}
+
+	private void ensureCapacity(int parentCount) {
+		if (size == nodesByIndex.length) {
+			int capacity = nodesByIndex.length * 2;
+			nodesByIndex = Arrays.copyOf(nodesByIndex, capacity);
+			commitTimes = Arrays.copyOf(commitTimes, capacity);
+			generations = Arrays.copyOf(generations, capacity);
+			parentsStart = Arrays.copyOf(parentsStart, capacity + 1);
+		}
+		int parentsSize = parentsStart[size];
+		if (parentsSize + parentCount > parents.length) {
+			parents = Arrays.copyOf(parents, Math.max(parents.length * 2, parentsSize + parentCount));
+		}
+	}
+
+	static class Node extends ObjectIdOwnerMap.Entry {
+		private static final long serialVersionUID = 1L;
+
+		final int index;
+
+		Node(AnyObjectId id, int index) {
+			super(id);
+			this.index = index;
+		}
+	}
+}
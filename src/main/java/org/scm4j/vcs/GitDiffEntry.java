@@ -0,0 +1,68 @@
+package org.scm4j.vcs;
+
+import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.diff.DiffEntry.ChangeType;
+import org.eclipse.jgit.diff.DiffEntry.Side;
+import org.scm4j.vcs.api.VCSChangeType;
+import org.scm4j.vcs.api.VCSDiffEntry;
+
+/**
+ * Changed file of {@link GitBranchesDiff}. Unified diff is formatted on each {@link #getUnifiedDiff()} call and is
+ * available until the owning {@link GitBranchesDiff} is closed.
+ */
+public class GitDiffEntry {
+
+	private final GitBranchesDiff owner;
+	private final DiffEntry diffEntry;
+	private final VCSChangeType changeType;
+
+	GitDiffEntry(GitBranchesDiff owner, DiffEntry diffEntry, VCSChangeType changeType) {
+		this.owner = owner;
+		this.diffEntry = diffEntry;
+		this.changeType = changeType;
+	}
+
+	/**
+	 * @return path of the file. New path for renamed and copied files
+	 */
+	public String getFilePath() {
+		return diffEntry.getPath(diffEntry.getChangeType() == ChangeType.DELETE || diffEntry.getChangeType() == ChangeType.MODIFY ?
+				Side.OLD : Side.NEW);
+	}
+
+	/**
+	 * @return path of the source file for renamed and copied files, {@link #getFilePath()} otherwise
+	 */
+	public String getOldFilePath() {
+		return diffEntry.getChangeType() == ChangeType.ADD ? diffEntry.getNewPath() : diffEntry.getOldPath();
+	}
+
+	public VCSChangeType getChangeType() {
+		return changeType;
+	}
+
+	public ChangeType getGitChangeType() {
+		return diffEntry.getChangeType();
+	}
+
+	/**
+	 * @return similarity percent of the source and the new files for renamed and copied files
+	 */
+	public int getScore() {
+		return diffEntry.getScore();
+	}
+
+	public String getUnifiedDiff() {
+		return owner.format(diffEntry);
+	}
+
+	public VCSDiffEntry toVCSDiffEntry() {
+		return new VCSDiffEntry(getFilePath(), changeType, getUnifiedDiff());
+	}
+
+	@Override
+	public String toString() {
+		return "GitDiffEntry [filePath=" + getFilePath() + ", oldFilePath=" + getOldFilePath() + ", changeType="
+				+ diffEntry.getChangeType() + "]";
+	}
+}
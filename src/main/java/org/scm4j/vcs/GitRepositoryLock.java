@@ -0,0 +1,48 @@
+package org.scm4j.vcs;
+
+import org.scm4j.vcs.api.workingcopy.IVCSLockedWorkingCopy;
+
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Lock of a repository held by a single operation. Read operations get the working copy to read from along with the
+ * lock. Both are released on close except the working copy shared by read operations which is kept locked.
+ */
+class GitRepositoryLock implements AutoCloseable {
+
+	private final Lock lock;
+	private final IVCSLockedWorkingCopy wc;
+	private final boolean sharedWorkingCopy;
+	private boolean closed;
+
+	/**
+	 * @param lock lock which is acquired already or null if the repository is not locked
+	 * @param wc working copy or null if the working copy is obtained by the operation itself
+	 */
+	GitRepositoryLock(Lock lock, IVCSLockedWorkingCopy wc, boolean sharedWorkingCopy) {
+		this.lock = lock;
+		this.wc = wc;
+		this.sharedWorkingCopy = sharedWorkingCopy;
+	}
+
+	public IVCSLockedWorkingCopy getWorkingCopy() {
+		return wc;
+	}
+
+	@Override
+	public void close() throws Exception {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			if (wc != null && !sharedWorkingCopy) {
+				wc.close();
+			}
+		} finally {
+			if (lock != null) {
+				lock.unlock();
+			}
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package org.scm4j.vcs;
+
+import org.eclipse.jgit.api.Git;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Keeps JGit repositories opened between vcs operations so pack indexes and ref caches are reused. Repositories are
+ * keyed by git dir, reference counted and closed after being idle for {@link #getIdleTimeoutMs()} milliseconds.
+ */
+class GitRepositoryPool {
+
+	public static final long DEFAULT_IDLE_TIMEOUT_MS = 60000;
+
+	private final Map<File, PooledRepository> repositories = new HashMap<>();
+	private final Listener listener;
+	private volatile long idleTimeoutMs = DEFAULT_IDLE_TIMEOUT_MS;
+
+	/**
+	 * @param listener notified of each repository removed from the pool
+	 */
+	GitRepositoryPool(Listener listener) {
+		this.listener = listener;
+	}
+
+	public long getIdleTimeoutMs() {
+		return idleTimeoutMs;
+	}
+
+	public void setIdleTimeoutMs(long idleTimeoutMs) {
+		this.idleTimeoutMs = idleTimeoutMs;
+	}
+
+	/**
+	 * @return Git which releases the pooled repository on close. Repository returned by {@link Git#getRepository()} is
+	 * released along with the Git so callers must not close it
+	 */
+	public synchronized Git open(File gitDir) throws IOException {
+		evictIdle();
+		PooledRepository pooled = repositories.get(gitDir);
+		if (pooled == null) {
+			Repository repo = new FileRepositoryBuilder()
+					.setGitDir(gitDir)
+					.build();
+			pooled = new PooledRepository(gitDir, repo);
+			repositories.put(gitDir, pooled);
+		}
+		pooled.refCount++;
+		pooled.repo.incrementOpen();
+		return new PooledGit(this, pooled);
+	}
+
+	/**
+	 * Removes the repository from the pool, e.g. if its folder is deleted or re-created. The repository is closed once
+	 * all current users release it.
+	 */
+	public synchronized void invalidate(File gitDir) {
+		PooledRepository pooled = repositories.remove(gitDir);
+		if (pooled != null) {
+			pooled.repo.close();
+		}
+		listener.removed(gitDir);
+	}
+
+	public synchronized void clear() {
+		for (PooledRepository pooled : repositories.values()) {
+			pooled.repo.close();
+			listener.removed(pooled.gitDir);
+		}
+		repositories.clear();
+	}
+
+	synchronized void release(PooledRepository pooled) {
+		pooled.refCount--;
+		pooled.lastUsed = System.currentTimeMillis();
+		evictIdle();
+	}
+
+	synchronized int size() {
+		return repositories.size();
+	}
+
+	private void evictIdle() {
+		long now = System.currentTimeMillis();
+		Iterator<PooledRepository> it = repositories.values().iterator();
+		while (it.hasNext()) {
+			PooledRepository pooled = it.next();
+			if (pooled.refCount <= 0 && now - pooled.lastUsed >= idleTimeoutMs) {
+				it.remove();
+				pooled.repo.close();
+				listener.removed(pooled.gitDir);
+			}
+		}
+	}
+
+	/**
+	 * Notified when a repository is removed from the pool, so caches built from the repository are dropped along with
+	 * it. Called while the pool is locked
+	 */
+	interface Listener {
+		void removed(File gitDir);
+	}
+
+	static class PooledRepository {
+		final File gitDir;
+		final Repository repo;
+		int refCount;
+		long lastUsed = System.currentTimeMillis();
+
+		PooledRepository(File gitDir, Repository repo) {
+			this.gitDir = gitDir;
+			this.repo = repo;
+		}
+	}
+
+	static class PooledGit extends Git {
+		private final GitRepositoryPool pool;
+		private final PooledRepository pooled;
+		private boolean released;
+
+		PooledGit(GitRepositoryPool pool, PooledRepository pooled) {
+			super(pooled.repo);
+			this.pool = pool;
+			this.pooled = pooled;
+		}
+
+		@Override
+		public void close() {
+			synchronized (pool) {
+				if (released) {
+					return;
+				}
+				released = true;
+				pool.release(pooled);
+			}
+			// balances the reference taken by open(). Invalidated repository is really closed by the last user
+			pooled.repo.close();
+		}
+	}
+}
@@ -0,0 +1,23 @@
+package org.scm4j.vcs;
+
+/**
+ * Defines when a working copy is synchronized with the remote repository (pull + fetch) before a read operation.
+ * Write operations always synchronize regardless of the policy.
+ */
+public enum GitSyncPolicy {
+
+	/**
+	 * Synchronize before each read operation
+	 */
+	ALWAYS,
+
+	/**
+	 * Synchronize at most once per {@link GitVCS#getSyncIntervalMs()} milliseconds per working copy
+	 */
+	PERIODIC,
+
+	/**
+	 * Synchronize only on fresh working copies and after {@link GitVCS#sync()} or a write operation is executed
+	 */
+	ON_DEMAND
+}
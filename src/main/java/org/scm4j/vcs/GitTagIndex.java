@@ -0,0 +1,227 @@
+package org.scm4j.vcs;
+
+import org.eclipse.jgit.lib.Constants;
+import org.eclipse.jgit.lib.ObjectId;
+import org.eclipse.jgit.lib.PersonIdent;
+import org.eclipse.jgit.lib.Ref;
+import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevObject;
+import org.eclipse.jgit.revwalk.RevTag;
+import org.eclipse.jgit.revwalk.RevWalk;
+import org.scm4j.vcs.api.VCSTag;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+
+/**
+ * Cache of tags of a repository with reverse index commit id -> tags. Updated incrementally by
+ * {@link #update(Repository)}: only tag refs which are added or moved since the last update are peeled. Tag and commit
+ * objects are immutable so materialized tags are kept until their refs are moved or removed.
+ */
+class GitTagIndex {
+
+	private final Map<String, TagEntry> tagsByName = new TreeMap<>();
+	private final Map<ObjectId, Map<String, TagEntry>> tagsByCommit = new HashMap<>();
+
+	/**
+	 * Synchronizes the index with current tag refs of the repository
+	 */
+	public synchronized void update(Repository gitRepo) throws IOException {
+		Map<String, Ref> tagRefs = gitRepo.getRefDatabase().getRefs(Constants.R_TAGS);
+
+		Iterator<TagEntry> it = tagsByName.values().iterator();
+		while (it.hasNext()) {
+			TagEntry entry = it.next();
+			Ref ref = tagRefs.get(entry.shortName);
+			if (ref == null || !entry.objectId.equals(ref.getObjectId())) {
+				it.remove();
+				unindex(entry);
+			}
+		}
+
+		try (RevWalk rw = new RevWalk(gitRepo)) {
+			rw.setRetainBody(false);
+			for (Ref ref : tagRefs.values()) {
+				if (tagsByName.containsKey(ref.getName())) {
+					continue;
+				}
+				ObjectId commitId = ref.getPeeledObjectId();
+				if (commitId == null) {
+					RevObject peeled = rw.peel(rw.parseAny(ref.getObjectId()));
+					if (!(peeled instanceof RevCommit)) {
+						// tags of non-commit objects are not supported
+						continue;
+					}
+					commitId = peeled.copy();
+				}
+				TagEntry entry = new TagEntry(ref.getName(), ref.getObjectId(), commitId);
+				tagsByName.put(entry.name, entry);
+				index(entry);
+			}
+		}
+	}
+
+	/**
+	 * @return all tags sorted by name
+	 */
+	public synchronized List<VCSTag> getTags(Repository gitRepo) throws IOException {
+		return getTags(gitRepo, tagsByName.values());
+	}
+
+	/**
+	 * @return tags pointing to {@code commitId} sorted by name
+	 */
+	public synchronized List<VCSTag> getTags(Repository gitRepo, ObjectId commitId) throws IOException {
+		Map<String, TagEntry> tags = tagsByCommit.get(commitId);
+		if (tags == null) {
+			return new ArrayList<>();
+		}
+		return getTags(gitRepo, tags.values());
+	}
+
+	/**
+	 * Lists tags which names match {@code namePattern}. Only refs under {@code refsPrefix} are read and only matching
+	 * ones are peeled and parsed. The index is updated for matching tags only. Refs are read in name order so tags
+	 * beyond {@code limit} are not parsed at all if ordered by name
+	 * 
+	 * @param refsPrefix prefix of tag refs ending with "/", e.g. "refs/tags/release/"
+	 * @param limit max count of tags to return. 0 or less means no limit
+	 */
+	public synchronized List<VCSTag> getTags(Repository gitRepo, String refsPrefix, Pattern namePattern, GitTagOrder order,
+			int limit) throws IOException {
+		Map<String, Ref> tagRefs = gitRepo.getRefDatabase().getRefs(refsPrefix);
+		List<TagEntry> entries = new ArrayList<>();
+		try (RevWalk rw = new RevWalk(gitRepo)) {
+			for (Ref ref : tagRefs.values()) {
+				if (order == GitTagOrder.NAME && limit > 0 && entries.size() >= limit) {
+					break;
+				}
+				String shortName = ref.getName().substring(Constants.R_TAGS.length());
+				if (!namePattern.matcher(shortName).matches()) {
+					continue;
+				}
+				TagEntry entry = tagsByName.get(ref.getName());
+				if (entry != null && !entry.objectId.equals(ref.getObjectId())) {
+					tagsByName.remove(entry.name);
+					unindex(entry);
+					entry = null;
+				}
+				if (entry == null) {
+					RevObject peeled = rw.peel(rw.parseAny(ref.getObjectId()));
+					if (!(peeled instanceof RevCommit)) {
+						continue;
+					}
+					entry = new TagEntry(ref.getName(), ref.getObjectId(), peeled.copy());
+					tagsByName.put(entry.name, entry);
+					index(entry);
+				}
+				if (entry.tag == null) {
+					materialize(rw, entry);
+				}
+				entries.add(entry);
+			}
+			// removed tags are detected by the full update only
+		}
+
+		if (order == GitTagOrder.TAG_TIME) {
+			Collections.sort(entries, new Comparator<TagEntry>() {
+				@Override
+				public int compare(TagEntry e1, TagEntry e2) {
+					return Long.compare(e2.tagTime, e1.tagTime);
+				}
+			});
+		} else if (order == GitTagOrder.COMMIT_TIME) {
+			Collections.sort(entries, new Comparator<TagEntry>() {
+				@Override
+				public int compare(TagEntry e1, TagEntry e2) {
+					return Long.compare(e2.commitTime, e1.commitTime);
+				}
+			});
+		}
+		if (limit > 0 && entries.size() > limit) {
+			entries = entries.subList(0, limit);
+		}
+		List<VCSTag> res = new ArrayList<>();
+		for (TagEntry entry : entries) {
+			res.add(entry.tag);
+		}
+		return res;
+	}
+
+	private List<VCSTag> getTags(Repository gitRepo, Collection<TagEntry> entries) throws IOException {
+		List<VCSTag> res = new ArrayList<>();
+		try (RevWalk rw = new RevWalk(gitRepo)) {
+			for (TagEntry entry : entries) {
+				if (entry.tag == null) {
+					materialize(rw, entry);
+				}
+				res.add(entry.tag);
+			}
+		}
+		return res;
+	}
+
+	private void materialize(RevWalk rw, TagEntry entry) throws IOException {
+		RevCommit revCommit = rw.parseCommit(entry.commitId);
+		RevObject revObject = rw.parseAny(entry.objectId);
+		entry.commitTime = revCommit.getCommitTime();
+		if (revObject instanceof RevTag) {
+			RevTag revTag = (RevTag) revObject;
+			PersonIdent tagger = revTag.getTaggerIdent();
+			entry.tagTime = tagger == null ? entry.commitTime : tagger.getWhen().getTime() / 1000;
+			entry.tag = new VCSTag(revTag.getTagName(), revTag.getFullMessage(), tagger == null ? null : tagger.getName(),
+					GitVCS.getVCSCommit(revCommit));
+		} else {
+			// tag is unannotated
+			entry.tagTime = entry.commitTime;
+			entry.tag = new VCSTag(entry.shortName, null, null, GitVCS.getVCSCommit(revCommit));
+		}
+	}
+
+	private void index(TagEntry entry) {
+		Map<String, TagEntry> tags = tagsByCommit.get(entry.commitId);
+		if (tags == null) {
+			tags = new TreeMap<>();
+			tagsByCommit.put(entry.commitId, tags);
+		}
+		tags.put(entry.name, entry);
+	}
+
+	private void unindex(TagEntry entry) {
+		Map<String, TagEntry> tags = tagsByCommit.get(entry.commitId);
+		if (tags != null) {
+			tags.remove(entry.name);
+			if (tags.isEmpty()) {
+				tagsByCommit.remove(entry.commitId);
+			}
+		}
+	}
+
+	static class TagEntry {
+		final String name;
+		final String shortName;
+		final ObjectId objectId;
+		final ObjectId commitId;
+		VCSTag tag;
+		// seconds since epoch
+		long commitTime;
+		long tagTime;
+
+		TagEntry(String name, ObjectId objectId, ObjectId commitId) {
+			this.name = name;
+			this.shortName = name.substring(Constants.R_TAGS.length());
+			this.objectId = objectId;
+			this.commitId = commitId;
+		}
+	}
+}
@@ -0,0 +1,22 @@
+package org.scm4j.vcs;
+
+/**
+ * Order of tags returned by {@link GitVCS#getTags(String, GitTagOrder, int)}
+ */
+public enum GitTagOrder {
+
+	/**
+	 * Ascending by tag name
+	 */
+	NAME,
+
+	/**
+	 * Most recent first by tagger date. Commit date is used for unannotated tags
+	 */
+	TAG_TIME,
+
+	/**
+	 * Most recent first by date of the tagged commit
+	 */
+	COMMIT_TIME
+}
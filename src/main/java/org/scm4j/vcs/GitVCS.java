@@ -2,6 +2,7 @@ package org.scm4j.vcs;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
 import org.eclipse.jgit.api.*;
 import org.eclipse.jgit.api.CreateBranchCommand.SetupUpstreamMode;
 import org.eclipse.jgit.api.ResetCommand.ResetType;
@@ -16,19 +17,27 @@ import org.eclipse.jgit.api.errors.RefNotAdvertisedException;
 import org.eclipse.jgit.api.errors.RefNotFoundException;
 import org.eclipse.jgit.api.errors.TransportException;
 import org.eclipse.jgit.api.errors.WrongRepositoryStateException;
-import org.eclipse.jgit.diff.DiffEntry;
 import org.eclipse.jgit.diff.DiffEntry.ChangeType;
-import org.eclipse.jgit.diff.DiffEntry.Side;
-import org.eclipse.jgit.diff.DiffFormatter;
+import org.eclipse.jgit.dircache.DirCache;
+import org.eclipse.jgit.dircache.DirCacheEditor;
+import org.eclipse.jgit.dircache.DirCacheEditor.PathEdit;
+import org.eclipse.jgit.dircache.DirCacheEntry;
 import org.eclipse.jgit.lib.*;
+import org.eclipse.jgit.merge.MergeStrategy;
+import org.eclipse.jgit.merge.ResolveMerger;
+import org.eclipse.jgit.merge.ThreeWayMerger;
 import org.eclipse.jgit.revwalk.*;
-import org.eclipse.jgit.storage.file.FileRepositoryBuilder;
 import org.eclipse.jgit.transport.CredentialsProvider;
+import org.eclipse.jgit.transport.PushResult;
 import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.RemoteConfig;
+import org.eclipse.jgit.transport.RemoteRefUpdate;
+import org.eclipse.jgit.transport.TagOpt;
+import org.eclipse.jgit.transport.URIish;
 import org.eclipse.jgit.transport.UsernamePasswordCredentialsProvider;
-import org.eclipse.jgit.treewalk.CanonicalTreeParser;
 import org.eclipse.jgit.treewalk.TreeWalk;
 import org.eclipse.jgit.treewalk.filter.PathFilter;
+import org.eclipse.jgit.treewalk.filter.PathFilterGroup;
 import org.scm4j.vcs.api.*;
 import org.scm4j.vcs.api.exceptions.*;
 import org.scm4j.vcs.api.workingcopy.IVCSLockedWorkingCopy;
@@ -39,6 +48,12 @@ import java.net.*;
 import java.net.Proxy.Type;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
 
 public class GitVCS implements IVCS {
 
@@ -47,12 +62,205 @@ public class GitVCS implements IVCS {
 	private static final String REFS_REMOTES_ORIGIN = Constants.R_REMOTES + Constants.DEFAULT_REMOTE_NAME + "/";
 	private static final String REFS_HEADS = Constants.R_HEADS;
 	private static final String REFS_TAGS = Constants.R_TAGS;
+	public static final long DEFAULT_SYNC_INTERVAL_MS = 5000;
+	public static final int DEFAULT_RENAME_LIMIT = 400;
+	public static final int DEFAULT_RENAME_SCORE = 60;
+	public static final long DEFAULT_REMOTE_REFS_TTL_MS = 10000;
+	// repo url -> git dir of a working copy -> last sync time
+	private static final ConcurrentMap<String, ConcurrentMap<String, Long>> LAST_SYNC_TIMES = new ConcurrentHashMap<>();
+	// caches built from a repository of a working copy live as long as the pooled repository
+	private static final GitRepositoryPool REPOSITORY_POOL = new GitRepositoryPool(new GitRepositoryPool.Listener() {
+		@Override
+		public void removed(File gitDir) {
+			dropCaches(gitDir);
+		}
+	});
+	// git dir -> tags index
+	private static final ConcurrentMap<File, GitTagIndex> TAG_INDEXES = new ConcurrentHashMap<>();
+	// sync scopes of a working copy, see fetch(Git, String)
+	private static final String SYNC_SCOPE_ALL = "";
+	private static final String SYNC_SCOPE_BRANCHES = Constants.R_HEADS;
+	private static final String SYNC_SCOPE_TAGS = Constants.R_TAGS;
+	// full or abbreviated commit id
+	private static final Pattern COMMIT_ID_PATTERN = Pattern.compile("[0-9a-fA-F]{4," + Constants.OBJECT_ID_STRING_LENGTH + "}");
+	// repo url -> refs listed from remote
+	private static final ConcurrentMap<String, RemoteRefs> REMOTE_REFS = new ConcurrentHashMap<>();
+	// mirror dir -> lock
+	private static final ConcurrentMap<File, Object> MIRROR_LOCKS = new ConcurrentHashMap<>();
+	// git dir -> commit graph
+	private static final ConcurrentMap<File, GitCommitGraph> COMMIT_GRAPHS = new ConcurrentHashMap<>();
+	// git dir -> branch ref name -> {head commit id the root was found for, root commit id}
+	private static final ConcurrentMap<File, ConcurrentMap<String, ObjectId[]>> ROOT_COMMITS = new ConcurrentHashMap<>();
+	private static final int MERGE_CHECKS_CACHE_SIZE = 1024;
+	// "src head id:dst head id" -> merge check result, least recently used ones are evicted
+	private static final Map<String, VCSMergeResult> MERGE_CHECKS = Collections.synchronizedMap(
+			new LinkedHashMap<String, VCSMergeResult>(16, 0.75f, true) {
+				private static final long serialVersionUID = 1L;
+
+				@Override
+				protected boolean removeEldestEntry(Map.Entry<String, VCSMergeResult> eldest) {
+					return size() > MERGE_CHECKS_CACHE_SIZE;
+				}
+			});
+	// repo folder within the workspace + repo url -> lock shared by read operations and held exclusively by write
+	// operations if shared reads are enabled
+	private static final ConcurrentMap<String, ReentrantReadWriteLock> REPOSITORY_LOCKS = new ConcurrentHashMap<>();
+	// repo folder within the workspace + repo url -> working copy shared by read operations
+	private static final ConcurrentMap<String, IVCSLockedWorkingCopy> SHARED_WORKING_COPIES = new ConcurrentHashMap<>();
+	// repo folder within the workspace + repo url -> time of the last read of the shared working copy
+	private static final ConcurrentMap<String, Long> SHARED_WORKING_COPY_READ_TIMES = new ConcurrentHashMap<>();
+	// repo folder within the workspace + repo url -> lock serializing creation of the shared working copy
+	private static final ConcurrentMap<String, Object> SHARED_WORKING_COPY_LOCKS = new ConcurrentHashMap<>();
+	// locks serializing clone and fetches of working copies, striped by git dir so their count is bounded
+	private static final Object[] SYNC_LOCKS = new Object[64];
+	static {
+		for (int i = 0; i < SYNC_LOCKS.length; i++) {
+			SYNC_LOCKS[i] = new Object();
+		}
+	}
 	private CredentialsProvider credentials;
 	private final IVCSRepositoryWorkspace repo;
+	private GitSyncPolicy syncPolicy = GitSyncPolicy.ALWAYS;
+	private long syncIntervalMs = DEFAULT_SYNC_INTERVAL_MS;
+	private boolean inCore = false;
+	private GitCloneMode cloneMode = GitCloneMode.FULL;
+	private String mirrorsFolder = null;
+	private boolean detectRenames = false;
+	private int renameLimit = DEFAULT_RENAME_LIMIT;
+	private int renameScore = DEFAULT_RENAME_SCORE;
+	private boolean listRemoteRefs = false;
+	private long remoteRefsTtlMs = DEFAULT_REMOTE_REFS_TTL_MS;
+	private boolean sharedReads = false;
 	
 	public CredentialsProvider getCredentials() {
 		return credentials;
 	}
+
+	public GitSyncPolicy getSyncPolicy() {
+		return syncPolicy;
+	}
+
+	public void setSyncPolicy(GitSyncPolicy syncPolicy) {
+		this.syncPolicy = syncPolicy;
+	}
+
+	public long getSyncIntervalMs() {
+		return syncIntervalMs;
+	}
+
+	public void setSyncIntervalMs(long syncIntervalMs) {
+		this.syncIntervalMs = syncIntervalMs;
+	}
+	
+	public GitCloneMode getCloneMode() {
+		return cloneMode;
+	}
+
+	/**
+	 * Sets what is cloned into fresh working copies. Working copies cloned already keep their mode
+	 */
+	public void setCloneMode(GitCloneMode cloneMode) {
+		this.cloneMode = cloneMode;
+	}
+
+	public String getMirrorsFolder() {
+		return mirrorsFolder;
+	}
+
+	/**
+	 * Enables shared bare mirrors of remote repositories located in {@code mirrorsFolder}. Objects are fetched to the
+	 * mirror once and fresh working copies are linked to it via {@code objects/info/alternates} instead of downloading
+	 * their own copies. Null (default) disables mirrors. Mirrors are never garbage collected since working copies
+	 * depend on their objects
+	 */
+	public void setMirrorsFolder(String mirrorsFolder) {
+		this.mirrorsFolder = mirrorsFolder;
+	}
+
+	public boolean isListRemoteRefs() {
+		return listRemoteRefs;
+	}
+
+	/**
+	 * If true then {@link #getBranches(String)} and {@link #getTagNames()} list refs of the remote repository directly
+	 * (ls-remote), without cloning or fetching a working copy. Listed refs are cached per repository url for
+	 * {@link #getRemoteRefsTtlMs()} milliseconds, pushes made within the JVM reset the cache
+	 */
+	public void setListRemoteRefs(boolean listRemoteRefs) {
+		this.listRemoteRefs = listRemoteRefs;
+	}
+
+	public long getRemoteRefsTtlMs() {
+		return remoteRefsTtlMs;
+	}
+
+	public void setRemoteRefsTtlMs(long remoteRefsTtlMs) {
+		this.remoteRefsTtlMs = remoteRefsTtlMs;
+	}
+
+	public boolean isInCore() {
+		return inCore;
+	}
+
+	/**
+	 * If true then {@link #setFileContent(String, List)} and {@link #merge(String, String, String)} build commits within
+	 * the object database and push them directly. Working tree and index of the working copy are not touched, so a merge
+	 * conflict never leaves the working copy corrupted
+	 */
+	public void setInCore(boolean inCore) {
+		this.inCore = inCore;
+	}
+	
+	public boolean isSharedReads() {
+		return sharedReads;
+	}
+
+	/**
+	 * If true then read operations of all {@code GitVCS} instances of the repository within the JVM share one working
+	 * copy and run concurrently under the read lock of the repository. They read the object database and refs only.
+	 * Write operations use own working copies and hold the write lock, so reads see changes once the write is pushed.
+	 * Shared working copy is kept locked in the workspace until it is not read for
+	 * {@link #setRepositoryIdleTimeoutMs(long)} milliseconds or {@link #closeRepositories()} is called
+	 */
+	public void setSharedReads(boolean sharedReads) {
+		this.sharedReads = sharedReads;
+	}
+
+	public boolean isDetectRenames() {
+		return detectRenames;
+	}
+
+	/**
+	 * If true then renamed and copied files are reported by branches diff as single entries of
+	 * {@link ChangeType#RENAME} or {@link ChangeType#COPY} type instead of pairs of deleted and added files. Such entries
+	 * have {@link VCSChangeType#UNKNOWN} vcs change type, use {@link GitDiffEntry} to get git change type and both paths
+	 */
+	public void setDetectRenames(boolean detectRenames) {
+		this.detectRenames = detectRenames;
+	}
+
+	public int getRenameLimit() {
+		return renameLimit;
+	}
+
+	/**
+	 * Sets max count of added or deleted files to be matched by rename detection. If exceeded then renames are not
+	 * detected and files are reported as added and deleted. 0 means no limit
+	 */
+	public void setRenameLimit(int renameLimit) {
+		this.renameLimit = renameLimit;
+	}
+
+	public int getRenameScore() {
+		return renameScore;
+	}
+
+	/**
+	 * Sets min similarity percent of files content to be considered as rename or copy
+	 */
+	public void setRenameScore(int renameScore) {
+		this.renameScore = renameScore;
+	}
 	
 	public GitVCS(IVCSRepositoryWorkspace repo) {
 		this.repo = repo;
@@ -67,27 +275,394 @@ public class GitVCS implements IVCS {
 	}
 
 	Git getLocalGit(String folder) throws Exception {
-		Repository gitRepo = new FileRepositoryBuilder()
-				.setGitDir(new File(folder, ".git"))
-				.build();
-		Boolean repoInited = gitRepo
+		File gitDir = new File(folder, ".git");
+		Git git = REPOSITORY_POOL.open(gitDir);
+		Boolean repoInited = git
+				.getRepository()
 				.getObjectDatabase()
 				.exists();
 		if (!repoInited) {
+			git.close();
+			synchronized (getSyncLock(gitDir)) {
+				// the working copy could be cloned by another reader of the shared working copy while waiting for the lock
+				git = REPOSITORY_POOL.open(gitDir);
+				if (!git.getRepository().getObjectDatabase().exists()) {
+					// the folder could be deleted and re-created since the repository is pooled
+					git.close();
+					invalidateRepository(gitDir);
+					cloneRepository(new File(folder));
+					git = REPOSITORY_POOL.open(gitDir);
+					markSynced(git.getRepository(), SYNC_SCOPE_ALL);
+				}
+			}
+		}
+		return git;
+	}
+	
+	private void cloneRepository(File folder) throws Exception {
+		File mirrorDir = mirrorsFolder == null ? null : updateMirror(getCloneMirrorScope());
+		if (cloneMode == GitCloneMode.FULL && mirrorDir == null) {
 			Git
 					.cloneRepository()
-					.setDirectory(new File(folder))
+					.setDirectory(folder)
 					.setURI(repo.getRepoUrl())
 					.setCredentialsProvider(credentials)
 					.call()
 					.close();
+			return;
+		}
+
+		// CloneCommand always fetches all tags, configures all branches to be fetched and could not use alternates. So
+		// the clone is made manually
+		try (Git git = Git.init().setDirectory(folder).call()) {
+			StoredConfig config = git.getRepository().getConfig();
+			RemoteConfig remoteConfig = new RemoteConfig(config, Constants.DEFAULT_REMOTE_NAME);
+			remoteConfig.addURI(new URIish(repo.getRepoUrl()));
+			if (cloneMode == GitCloneMode.SINGLE_BRANCH) {
+				remoteConfig.addFetchRefSpec(getTrackingRefSpec(MASTER_BRANCH_NAME));
+			} else {
+				remoteConfig.addFetchRefSpec(getTrackingRefSpec("*"));
+				if (cloneMode == GitCloneMode.NO_TAGS) {
+					remoteConfig.setTagOpt(TagOpt.NO_TAGS);
+				}
+			}
+			remoteConfig.update(config);
+			config.save();
+			if (mirrorDir != null) {
+				FileUtils.writeStringToFile(new File(git.getRepository().getDirectory(), "objects/info/alternates"),
+						new File(mirrorDir, "objects").getAbsolutePath() + "\n", StandardCharsets.UTF_8);
+			}
+		}
+
+		// re-opened to load alternates
+		try (Git git = Git.open(folder)) {
+			// objects found in the mirror are not downloaded, only refs are created
+			git
+					.fetch()
+					.setRemote(Constants.DEFAULT_REMOTE_NAME)
+					.setTagOpt(cloneMode == GitCloneMode.FULL ? TagOpt.FETCH_TAGS : null)
+					.setCredentialsProvider(credentials)
+					.call();
+
+			if (git.getRepository().exactRef(REFS_REMOTES_ORIGIN + MASTER_BRANCH_NAME) != null) {
+				git
+						.checkout()
+						.setCreateBranch(true)
+						.setName(MASTER_BRANCH_NAME)
+						.setStartPoint("origin/" + MASTER_BRANCH_NAME)
+						.setUpstreamMode(SetupUpstreamMode.TRACK)
+						.call();
+			}
 		}
-		return new Git(gitRepo);
 	}
-	
+
+	/**
+	 * Creates or fetches the bare mirror of the remote repository. Mirrors are shared by all working copies of the
+	 * repository located in any workspace. Only refs of the sync scope are fetched, see {@link #fetch(Git, String)}
+	 */
+	private File updateMirror(String scope) throws Exception {
+		File mirrorDir = new File(mirrorsFolder, repo.getRepoUrl().replaceAll("[^A-Za-z0-9._-]", "_") + ".git");
+		Object mirrorLock = MIRROR_LOCKS.get(mirrorDir);
+		if (mirrorLock == null) {
+			mirrorLock = new Object();
+			Object existing = MIRROR_LOCKS.putIfAbsent(mirrorDir, mirrorLock);
+			if (existing != null) {
+				mirrorLock = existing;
+			}
+		}
+		synchronized (mirrorLock) {
+			Git mirrorGit = new File(mirrorDir, "objects").exists() ?
+					Git.open(mirrorDir) :
+					Git.init().setBare(true).setDirectory(mirrorDir).call();
+			try {
+				List<RefSpec> refSpecs = new ArrayList<>();
+				if (scope.equals(SYNC_SCOPE_ALL) || scope.equals(SYNC_SCOPE_BRANCHES)) {
+					refSpecs.add(new RefSpec("+refs/heads/*:refs/heads/*"));
+				}
+				if (scope.equals(SYNC_SCOPE_ALL) || scope.equals(SYNC_SCOPE_TAGS)) {
+					refSpecs.add(new RefSpec("+refs/tags/*:refs/tags/*"));
+				}
+				if (refSpecs.isEmpty()) {
+					String branchName = scope.substring(SYNC_SCOPE_BRANCHES.length());
+					try {
+						mirrorGit
+								.fetch()
+								.setRemote(repo.getRepoUrl())
+								.setRefSpecs(new RefSpec("+" + REFS_HEADS + branchName + ":" + REFS_HEADS + branchName))
+								.setTagOpt(TagOpt.NO_TAGS)
+								.setCredentialsProvider(credentials)
+								.call();
+					} catch (TransportException e) {
+						// the branch does not exist on remote. Working copy fetch reports or prunes it
+					}
+				} else {
+					mirrorGit
+							.fetch()
+							.setRemote(repo.getRepoUrl())
+							.setRefSpecs(refSpecs)
+							.setTagOpt(TagOpt.NO_TAGS)
+							.setRemoveDeletedRefs(true)
+							.setCredentialsProvider(credentials)
+							.call();
+				}
+			} finally {
+				mirrorGit.close();
+			}
+		}
+		return mirrorDir;
+	}
+
+	/**
+	 * @return scope of the mirror update made before the clone. Refs which are not fetched by the working copy of the
+	 * {@link #getCloneMode()} are not fetched to the mirror either
+	 */
+	private String getCloneMirrorScope() {
+		if (cloneMode == GitCloneMode.FULL) {
+			return SYNC_SCOPE_ALL;
+		}
+		if (cloneMode == GitCloneMode.NO_TAGS) {
+			return SYNC_SCOPE_BRANCHES;
+		}
+		return SYNC_SCOPE_BRANCHES + MASTER_BRANCH_NAME;
+	}
+
+	/**
+	 * @return scopes of the mirror updates which provide objects for the sync scope of the working copy. Only branches
+	 * tracked by the working copy are fetched to the mirror, tags are fetched if the working copy fetches all of them
+	 */
+	private List<String> getMirrorScopes(Repository gitRepo, String scope) throws URISyntaxException {
+		if (!scope.equals(SYNC_SCOPE_ALL) && !scope.equals(SYNC_SCOPE_BRANCHES)) {
+			return Collections.singletonList(scope);
+		}
+		RemoteConfig remoteConfig = new RemoteConfig(gitRepo.getConfig(), Constants.DEFAULT_REMOTE_NAME);
+		List<String> scopes = new ArrayList<>();
+		for (RefSpec refSpec : remoteConfig.getFetchRefSpecs()) {
+			if (refSpec.isWildcard()) {
+				boolean withTags = scope.equals(SYNC_SCOPE_ALL) && remoteConfig.getTagOpt() != TagOpt.NO_TAGS;
+				return Collections.singletonList(withTags ? SYNC_SCOPE_ALL : SYNC_SCOPE_BRANCHES);
+			}
+			scopes.add(SYNC_SCOPE_BRANCHES + refSpec.getSource().substring(REFS_HEADS.length()));
+		}
+		return scopes;
+	}
+
+	private boolean isMirrored(Repository gitRepo) {
+		return mirrorsFolder != null && new File(gitRepo.getDirectory(), "objects/info/alternates").exists();
+	}
+
+	private RefSpec getTrackingRefSpec(String branchName) {
+		return new RefSpec("+" + REFS_HEADS + branchName + ":" + REFS_REMOTES_ORIGIN + branchName);
+	}
+
+	/**
+	 * Fetches the branch if it is not tracked by the working copy, i.e. the working copy is cloned in
+	 * {@link GitCloneMode#SINGLE_BRANCH} mode. Fetched branch is synchronized by subsequent syncs. Nothing is done if the
+	 * branch does not exist on remote. Remote branch ref which exists but is not tracked, e.g. fetched along with all
+	 * branches by {@link #fetchCommitIfMissing(Git, ObjectId)}, is fetched again since it could be outdated
+	 */
+	private void fetchBranchIfMissing(Git git, String branchName) throws Exception {
+		Repository gitRepo = git.getRepository();
+		if (isBranchTracked(gitRepo, branchName)) {
+			return;
+		}
+		synchronized (getSyncLock(gitRepo.getDirectory())) {
+			if (!isBranchTracked(gitRepo, branchName)) {
+				fetchBranch(git, branchName);
+			}
+		}
+	}
+
+	private void fetchBranch(Git git, String branchName) throws Exception {
+		Repository gitRepo = git.getRepository();
+		Collection<Ref> remoteRefs = git
+				.lsRemote()
+				.setHeads(true)
+				.setCredentialsProvider(credentials)
+				.call();
+		boolean exists = false;
+		for (Ref remoteRef : remoteRefs) {
+			if (remoteRef.getName().equals(REFS_HEADS + branchName)) {
+				exists = true;
+				break;
+			}
+		}
+		if (!exists) {
+			return;
+		}
+		if (isMirrored(gitRepo)) {
+			updateMirror(SYNC_SCOPE_BRANCHES + branchName);
+		}
+		git
+				.fetch()
+				.setRefSpecs(getTrackingRefSpec(branchName),
+						new RefSpec("+" + REFS_HEADS + branchName + ":" + REFS_HEADS + branchName))
+				.setCredentialsProvider(credentials)
+				.call();
+		trackBranch(gitRepo, branchName);
+	}
+
+	private boolean isBranchTracked(Repository gitRepo, String branchName) throws URISyntaxException {
+		RemoteConfig remoteConfig = new RemoteConfig(gitRepo.getConfig(), Constants.DEFAULT_REMOTE_NAME);
+		for (RefSpec refSpec : remoteConfig.getFetchRefSpecs()) {
+			if (refSpec.matchSource(REFS_HEADS + branchName)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Adds the branch to the fetch ref specs of the working copy if it is not tracked yet, so the branch is synchronized
+	 * by subsequent full syncs
+	 */
+	private void trackBranch(Repository gitRepo, String branchName) throws Exception {
+		if (isBranchTracked(gitRepo, branchName)) {
+			return;
+		}
+		StoredConfig config = gitRepo.getConfig();
+		RemoteConfig remoteConfig = new RemoteConfig(config, Constants.DEFAULT_REMOTE_NAME);
+		remoteConfig.addFetchRefSpec(getTrackingRefSpec(branchName));
+		remoteConfig.update(config);
+		config.save();
+	}
+
+	/**
+	 * Fetches all branches if the commit is not found locally and the working copy does not track all branches
+	 */
+	private void fetchCommitIfMissing(Git git, ObjectId commitId) throws Exception {
+		Repository gitRepo = git.getRepository();
+		if (gitRepo.hasObject(commitId)) {
+			return;
+		}
+		if (isAllBranchesTracked(gitRepo)) {
+			return;
+		}
+		synchronized (getSyncLock(gitRepo.getDirectory())) {
+			if (!gitRepo.hasObject(commitId)) {
+				if (isMirrored(gitRepo)) {
+					updateMirror(SYNC_SCOPE_BRANCHES);
+				}
+				git
+						.fetch()
+						.setRefSpecs(getTrackingRefSpec("*"))
+						.setCredentialsProvider(credentials)
+						.call();
+			}
+		}
+	}
+
+	private boolean isAllBranchesTracked(Repository gitRepo) throws URISyntaxException {
+		RemoteConfig remoteConfig = new RemoteConfig(gitRepo.getConfig(), Constants.DEFAULT_REMOTE_NAME);
+		for (RefSpec refSpec : remoteConfig.getFetchRefSpecs()) {
+			if (refSpec.isWildcard()) {
+				return true;
+			}
+		}
+		return false;
+	}
+
 	Git getLocalGit(IVCSLockedWorkingCopy wc) throws Exception {
 		return getLocalGit(wc.getFolder().getPath());
 	}
+
+	/**
+	 * Locks the repository for an operation which reads the object database and refs only
+	 * 
+	 * @return lock providing the working copy to read from
+	 */
+	private GitRepositoryLock lockForRead() throws Exception {
+		releaseIdleSharedWorkingCopies();
+		if (!sharedReads) {
+			return new GitRepositoryLock(null, repo.getVCSLockedWorkingCopy(), false);
+		}
+		Lock lock = getRepositoryLock().readLock();
+		lock.lock();
+		try {
+			GitRepositoryLock res = new GitRepositoryLock(lock, getSharedWorkingCopy(), true);
+			SHARED_WORKING_COPY_READ_TIMES.put(getSharedReadsKey(), System.currentTimeMillis());
+			return res;
+		} catch (Exception e) {
+			lock.unlock();
+			throw e;
+		}
+	}
+
+	/**
+	 * Locks the repository for an operation which changes the working tree or pushes. The operation gets own working
+	 * copy from the workspace
+	 *
+	 * @throws IllegalStateException if the read lock is held by the current thread, e.g. the write is called within
+	 * {@link #log(String, String, boolean, Predicate)} visitor. The read lock could not be upgraded so the write would
+	 * wait forever
+	 */
+	private GitRepositoryLock lockForWrite() {
+		releaseIdleSharedWorkingCopies();
+		if (!sharedReads) {
+			return new GitRepositoryLock(null, null, false);
+		}
+		ReentrantReadWriteLock repositoryLock = getRepositoryLock();
+		if (repositoryLock.getReadHoldCount() > 0) {
+			throw new IllegalStateException("write operation within read operation of " + repo.getRepoUrl());
+		}
+		Lock lock = repositoryLock.writeLock();
+		lock.lock();
+		return new GitRepositoryLock(lock, null, false);
+	}
+
+	/**
+	 * Lock guards the working copy shared by read operations within the workspace, so writes do not block reads of
+	 * other workspaces of the same repository
+	 */
+	private ReentrantReadWriteLock getRepositoryLock() {
+		String key = getSharedReadsKey();
+		ReentrantReadWriteLock lock = REPOSITORY_LOCKS.get(key);
+		if (lock == null) {
+			lock = new ReentrantReadWriteLock();
+			ReentrantReadWriteLock existing = REPOSITORY_LOCKS.putIfAbsent(key, lock);
+			if (existing != null) {
+				lock = existing;
+			}
+		}
+		return lock;
+	}
+
+	/**
+	 * Working copy is shared within the workspace only, instances of other workspaces of the same repository must not
+	 * read from it
+	 */
+	private IVCSLockedWorkingCopy getSharedWorkingCopy() throws Exception {
+		String key = getSharedReadsKey();
+		IVCSLockedWorkingCopy wc = SHARED_WORKING_COPIES.get(key);
+		if (wc != null) {
+			return wc;
+		}
+		Object sharedWorkingCopyLock = SHARED_WORKING_COPY_LOCKS.get(key);
+		if (sharedWorkingCopyLock == null) {
+			sharedWorkingCopyLock = new Object();
+			Object existing = SHARED_WORKING_COPY_LOCKS.putIfAbsent(key, sharedWorkingCopyLock);
+			if (existing != null) {
+				sharedWorkingCopyLock = existing;
+			}
+		}
+		// working copy is locked under the lock of its repository only so other repositories are not blocked
+		synchronized (sharedWorkingCopyLock) {
+			wc = SHARED_WORKING_COPIES.get(key);
+			if (wc == null) {
+				// kept locked so the workspace never gives it to other operations
+				wc = repo.getVCSLockedWorkingCopy();
+				SHARED_WORKING_COPIES.put(key, wc);
+			}
+			return wc;
+		}
+	}
+
+	private String getSharedReadsKey() {
+		return repo.getRepoFolder().getAbsolutePath() + ":" + repo.getRepoUrl();
+	}
+
+	private static Object getSyncLock(File gitDir) {
+		return SYNC_LOCKS[(gitDir.hashCode() & Integer.MAX_VALUE) % SYNC_LOCKS.length];
+	}
 	
 	public VCSChangeType gitChangeTypeToVCSChangeType(ChangeType changeType) {
 		switch (changeType) {
@@ -103,17 +678,25 @@ public class GitVCS implements IVCS {
 	}
 	
 	public VCSTag createUnannotatedTag(String branchName, String tagName, String revisionToTag) {
-		try (IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
+		try (GitRepositoryLock lock = lockForWrite();
+			 IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
 			 Git git = getLocalGit(wc);
-			 Repository gitRepo = git.getRepository();
-			 RevWalk rw = new RevWalk(gitRepo)) {
+			 RevWalk rw = new RevWalk(git.getRepository())) {
+			Repository gitRepo = git.getRepository();
 
-			git
-					.pull()
-					.setCredentialsProvider(credentials)
-					.call();
+			String bn = getRealBranchName(branchName);
+			syncBranch(git, true, bn);
+			// existing tag must be known to be detected
+			sync(git, true, SYNC_SCOPE_TAGS);
 			
-			RevCommit commitToTag = revisionToTag == null ? null : rw.parseCommit(ObjectId.fromString(revisionToTag));
+			RevCommit commitToTag;
+			if (revisionToTag == null) {
+				commitToTag = getRemoteHeadCommit(gitRepo, rw, bn);
+			} else {
+				// commit of a branch which is not tracked by the working copy is fetched on demand
+				fetchCommitIfMissing(git, ObjectId.fromString(revisionToTag));
+				commitToTag = rw.parseCommit(ObjectId.fromString(revisionToTag));
+			}
 			
 			Ref ref = git
 					.tag()
@@ -124,8 +707,9 @@ public class GitVCS implements IVCS {
 			
 			push(git, new RefSpec(ref.getName()));
 			
-			return new VCSTag(tagName, null, null, revisionToTag == null ? getHeadCommit(branchName)
-					: getVCSCommit(commitToTag));
+			return new VCSTag(tagName, null, null, getVCSCommit(commitToTag));
+		} catch (EVCSBranchNotFound e) {
+			throw e;
 		} catch (GitAPIException e) {
 			throw new EVCSException(e);
 		} catch (Exception e) {
@@ -136,11 +720,14 @@ public class GitVCS implements IVCS {
 	@Override
 	public void createBranch(String srcBranchName, String newBranchName, String commitMessage) {
 		// note: no commit message could be attached in Git
-		try (IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
-			 Git git = getLocalGit(wc);
-			 Repository gitRepo = git.getRepository()) {
-
-			checkout(git, gitRepo, srcBranchName, null);
+		try (GitRepositoryLock lock = lockForWrite();
+			 IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
+			 Git git = getLocalGit(wc)) {
+			Repository gitRepo = git.getRepository();
+
+			checkout(git, gitRepo, srcBranchName, null, true);
+			// existing branch must be known to be detected
+			fetchBranchIfMissing(git, newBranchName);
 			
 			git
 					.branchCreate()
@@ -163,11 +750,12 @@ public class GitVCS implements IVCS {
 
 	@Override
 	public void deleteBranch(String branchName, String commitMessage) {
-		try (IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
-			 Git git = getLocalGit(wc);
-			 Repository gitRepo = git.getRepository()) {
+		try (GitRepositoryLock lock = lockForWrite();
+			 IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
+			 Git git = getLocalGit(wc)) {
+			Repository gitRepo = git.getRepository();
 
-			checkout(git, gitRepo, MASTER_BRANCH_NAME, null);
+			checkout(git, gitRepo, MASTER_BRANCH_NAME, null, true);
 
 			git
 					.branchDelete()
@@ -185,27 +773,68 @@ public class GitVCS implements IVCS {
 		}
 	}
 
-	void push(Git git, RefSpec refSpec) throws GitAPIException {
+	Iterable<PushResult> push(Git git, RefSpec refSpec) throws GitAPIException {
+		return push(git, refSpec == null ? Collections.<RefSpec>emptyList() : Collections.singletonList(refSpec));
+	}
+
+	/**
+	 * Pushes all refs within a single push. Pushes all branches if no ref specs provided
+	 */
+	Iterable<PushResult> push(Git git, List<RefSpec> refSpecs) throws GitAPIException {
 		PushCommand cmd = git
 				.push();
-		if (refSpec != null) {
-			cmd.setRefSpecs(refSpec);
+		if (!refSpecs.isEmpty()) {
+			cmd.setRefSpecs(refSpecs);
 		} else {
 			cmd.setPushAll();
 		}
-		cmd
+		Iterable<PushResult> res = cmd
 				.setRemote("origin")
 				.setCredentialsProvider(credentials)
 				.call();
+		// other working copies of the repository are outdated now
+		invalidateSync();
+		return res;
+	}
+
+	private void checkPushed(Iterable<PushResult> pushResults) throws TransportException {
+		for (PushResult pushResult : pushResults) {
+			for (RemoteRefUpdate update : pushResult.getRemoteUpdates()) {
+				TransportException pushException = getPushException(update);
+				if (pushException != null) {
+					throw pushException;
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return exception describing failed ref update or null if the ref is pushed or up to date
+	 */
+	private TransportException getPushException(RemoteRefUpdate update) {
+		if (update == null) {
+			return new TransportException("ref is not pushed");
+		}
+		if (update.getStatus() == RemoteRefUpdate.Status.OK || update.getStatus() == RemoteRefUpdate.Status.UP_TO_DATE) {
+			return null;
+		}
+		return new TransportException("failed to push " + update.getRemoteName() + ": " + update.getStatus()
+				+ (update.getMessage() == null ? "" : " " + update.getMessage()));
 	}
 
 	@Override
 	public VCSMergeResult merge(String srcBranchName, String dstBranchName, String commitMessage) {
-		try (IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
-			 Git git = getLocalGit(wc);
-			 Repository gitRepo = git.getRepository()) {
+		try (GitRepositoryLock lock = lockForWrite();
+			 IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
+			 Git git = getLocalGit(wc)) {
+			Repository gitRepo = git.getRepository();
 
-			checkout(git, gitRepo, dstBranchName, null);
+			if (inCore) {
+				return mergeInCore(git, srcBranchName, dstBranchName, commitMessage);
+			}
+
+			checkout(git, gitRepo, dstBranchName, null, true);
+			fetchBranchIfMissing(git, getRealBranchName(srcBranchName));
 
 			MergeResult mr = git
 					.merge()
@@ -229,11 +858,122 @@ public class GitVCS implements IVCS {
 							.call();
 				} catch(Exception e) {
 					wc.setCorrupted(true);
+					// corrupted working copy will be deleted so pooled repository must not hold its files
+					invalidateRepository(gitRepo.getDirectory());
 				}
 			} else {
-				push(git, null);
+				String bn = getRealBranchName(dstBranchName);
+				push(git, new RefSpec(bn + ":" + bn));
 			}
 			return new VCSMergeResult(success, conflictingFiles);
+		} catch (EVCSBranchNotFound e) {
+			throw e;
+		} catch (EVCSException e) {
+			throw e;
+		} catch (GitAPIException e) {
+			throw new EVCSException(e);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Merges remote branch heads within the object database and pushes the result directly to the remote destination
+	 * branch. Fast-forwards if possible, creates a merge commit otherwise. Nothing is pushed on conflict
+	 */
+	private VCSMergeResult mergeInCore(Git git, String srcBranchName, String dstBranchName, String commitMessage)
+			throws Exception {
+		Repository gitRepo = git.getRepository();
+		String srcBn = getRealBranchName(srcBranchName);
+		String dstBn = getRealBranchName(dstBranchName);
+		syncBranch(git, true, dstBn);
+		syncBranch(git, true, srcBn);
+		try (RevWalk rw = new RevWalk(gitRepo)) {
+			RevCommit dstCommit = getRemoteHeadCommit(gitRepo, rw, dstBn);
+			RevCommit srcCommit = getRemoteHeadCommit(gitRepo, rw, srcBn);
+			if (rw.isMergedInto(srcCommit, dstCommit)) {
+				return new VCSMergeResult(true, new ArrayList<String>());
+			}
+
+			ObjectId resultId;
+			if (rw.isMergedInto(dstCommit, srcCommit)) {
+				resultId = srcCommit;
+			} else {
+				ResolveMerger merger = (ResolveMerger) MergeStrategy.RECURSIVE.newMerger(gitRepo, true);
+				if (!merger.merge(dstCommit, srcCommit)) {
+					if (merger.getFailingPaths() != null) {
+						throw getMergeFailedException(merger, srcBn, dstBn);
+					}
+					return new VCSMergeResult(false, new ArrayList<>(merger.getUnmergedPaths()));
+				}
+				try (ObjectInserter inserter = gitRepo.newObjectInserter()) {
+					CommitBuilder commitBuilder = new CommitBuilder();
+					PersonIdent ident = new PersonIdent(gitRepo);
+					commitBuilder.setTreeId(merger.getResultTreeId());
+					commitBuilder.setParentIds(dstCommit, srcCommit);
+					commitBuilder.setAuthor(ident);
+					commitBuilder.setCommitter(ident);
+					commitBuilder.setMessage(commitMessage);
+					resultId = inserter.insert(commitBuilder);
+					inserter.flush();
+				}
+			}
+			checkPushed(push(git, new RefSpec(resultId.getName() + ":" + REFS_HEADS + dstBn)));
+			return new VCSMergeResult(true, new ArrayList<String>());
+		}
+	}
+
+	/**
+	 * @return exception describing the merge which failed for other reason than conflicts, e.g. a path which could not be
+	 * merged
+	 */
+	private EVCSException getMergeFailedException(ResolveMerger merger, String srcBn, String dstBn) {
+		return new EVCSException(new IOException("failed to merge " + srcBn + " into " + dstBn + ": "
+				+ merger.getFailingPaths()));
+	}
+
+	/**
+	 * Checks if {@link #merge(String, String, String)} of the current branch heads would succeed. The merge is executed
+	 * in-core: neither refs nor working tree of the working copy are changed and nothing is pushed. Results are cached
+	 * by source and destination head commit ids so repeated checks of unchanged branches are not recomputed
+	 *
+	 * @return result with the list of conflicting files if the merge would fail because of conflicts
+	 * @throws EVCSException if the merge fails for other reason than conflicts
+	 */
+	public VCSMergeResult checkMerge(String srcBranchName, String dstBranchName) {
+		try (GitRepositoryLock lock = lockForRead();
+			 Git git = getLocalGit(lock.getWorkingCopy());
+			 RevWalk rw = new RevWalk(git.getRepository())) {
+			Repository gitRepo = git.getRepository();
+
+			syncBranch(git, false, getRealBranchName(srcBranchName));
+			syncBranch(git, false, getRealBranchName(dstBranchName));
+			RevCommit srcCommit = getRemoteHeadCommit(gitRepo, rw, srcBranchName);
+			RevCommit dstCommit = getRemoteHeadCommit(gitRepo, rw, dstBranchName);
+			String key = srcCommit.getName() + ":" + dstCommit.getName();
+			VCSMergeResult res = MERGE_CHECKS.get(key);
+			if (res == null) {
+				List<String> conflictingFiles = new ArrayList<>();
+				if (!rw.isMergedInto(srcCommit, dstCommit) && !rw.isMergedInto(dstCommit, srcCommit)) {
+					// merged tree is written to the object database of the working copy but is not referenced
+					ResolveMerger merger = (ResolveMerger) MergeStrategy.RECURSIVE.newMerger(gitRepo, true);
+					if (!merger.merge(dstCommit, srcCommit)) {
+						if (merger.getFailingPaths() != null) {
+							// not cached since the failure is not determined by the heads
+							throw getMergeFailedException(merger, getRealBranchName(srcBranchName),
+									getRealBranchName(dstBranchName));
+						}
+						conflictingFiles.addAll(merger.getUnmergedPaths());
+					}
+				}
+				res = new VCSMergeResult(conflictingFiles.isEmpty(), Collections.unmodifiableList(conflictingFiles));
+				MERGE_CHECKS.put(key, res);
+			}
+			return new VCSMergeResult(res.getSuccess(), new ArrayList<>(res.getConflictingFiles()));
+		} catch (EVCSBranchNotFound e) {
+			throw e;
+		} catch (EVCSException e) {
+			throw e;
 		} catch (GitAPIException e) {
 			throw new EVCSException(e);
 		} catch (Exception e) {
@@ -289,42 +1029,95 @@ public class GitVCS implements IVCS {
 	
 	@Override
 	public String getFileContent(String branchName, String fileRelativePath, String revision) {
-		try (IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
-			 Git git = getLocalGit(wc);
-			 Repository gitRepo = git.getRepository();
-			 RevWalk revWalk = new RevWalk(gitRepo);
-			 TreeWalk treeWalk = new TreeWalk(gitRepo)) {
-			
-			pullAndFetch(git);
+		try (GitRepositoryLock lock = lockForRead();
+			 Git git = getLocalGit(lock.getWorkingCopy())) {
 
-			ObjectId revisionCommitId = gitRepo.resolve(revision == null ? REFS_HEADS + getRealBranchName(branchName) : revision);
-			if (revision == null && revisionCommitId == null) {
-				throw new EVCSBranchNotFound(getRepoUrl(), getRealBranchName(branchName));
-			}
+			ObjectLoader loader = openFile(git, branchName, fileRelativePath, revision);
+			InputStream in = loader.openStream();
+			return IOUtils.toString(in, StandardCharsets.UTF_8);
+		} catch(EVCSFileNotFound | EVCSBranchNotFound e) {
+			throw e;
+		} catch (GitAPIException e) {
+			throw new EVCSException(e);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
 
-			RevCommit commit = revWalk.parseCommit(revisionCommitId);
-			RevTree tree = commit.getTree();
-			treeWalk.addTree(tree);
-			treeWalk.setRecursive(true);
-			treeWalk.setFilter(PathFilter.create(fileRelativePath));
-			if (!treeWalk.next()) {
-				throw new EVCSFileNotFound(getRepoUrl(), getRealBranchName(branchName), fileRelativePath, revision);
-			}
-			ObjectId objectId = treeWalk.getObjectId(0);
+	/**
+	 * Writes raw file content to {@code out}. Large files are streamed from the object database and never held in
+	 * memory completely.
+	 */
+	public void getFileContent(String branchName, String fileRelativePath, String revision, OutputStream out) {
+		try (GitRepositoryLock lock = lockForRead();
+			 Git git = getLocalGit(lock.getWorkingCopy())) {
 
-			ObjectLoader loader = gitRepo.open(objectId);
-			InputStream in = loader.openStream();
-			String res = IOUtils.toString(in, StandardCharsets.UTF_8);
+			openFile(git, branchName, fileRelativePath, revision).copyTo(out);
+		} catch(EVCSFileNotFound | EVCSBranchNotFound e) {
+			throw e;
+		} catch (GitAPIException e) {
+			throw new EVCSException(e);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
 
-			if (revision != null) {
-				// need to prevent "checkout conflict with files" exception on scm4j-releaser testTagExistsOnExecute() test
-				git
-						.reset()
-						.setMode(ResetType.HARD)
-						.call();
+	/**
+	 * @return raw file content without charset decoding
+	 */
+	public byte[] getFileContentBytes(String branchName, String fileRelativePath, String revision) {
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		getFileContent(branchName, fileRelativePath, revision, baos);
+		return baos.toByteArray();
+	}
+
+	/**
+	 * Reads many files of one revision at once. All paths are resolved within a single tree walk and blobs are loaded
+	 * through a shared object reader
+	 * 
+	 * @return map of file path to its content. Files which do not exist, folders and the repository root are not
+	 * included
+	 */
+	public Map<String, String> getFilesContent(String branchName, Collection<String> filePaths, String revision) {
+		try (GitRepositoryLock lock = lockForRead();
+			 Git git = getLocalGit(lock.getWorkingCopy());
+			 ObjectReader reader = git.getRepository().newObjectReader();
+			 RevWalk revWalk = new RevWalk(reader);
+			 TreeWalk treeWalk = new TreeWalk(reader)) {
+
+			Map<String, String> res = new HashMap<>();
+			Map<String, List<String>> normalizedPaths = new HashMap<>();
+			for (String filePath : filePaths) {
+				String normalizedPath = StringUtils.stripEnd(filePath, "/");
+				// repository root is not a file
+				if (normalizedPath.isEmpty()) {
+					continue;
+				}
+				if (!normalizedPaths.containsKey(normalizedPath)) {
+					normalizedPaths.put(normalizedPath, new ArrayList<String>());
+				}
+				normalizedPaths.get(normalizedPath).add(filePath);
+			}
+			if (normalizedPaths.isEmpty()) {
+				return res;
+			}
+			RevCommit commit = resolveCommit(git, revWalk, branchName, revision);
+			treeWalk.addTree(commit.getTree());
+			treeWalk.setRecursive(true);
+			treeWalk.setFilter(PathFilterGroup.createFromStrings(normalizedPaths.keySet()));
+			while (!normalizedPaths.isEmpty() && treeWalk.next()) {
+				// walk is recursive so folder paths are never matched
+				List<String> found = normalizedPaths.remove(treeWalk.getPathString());
+				if (found != null) {
+					ObjectLoader loader = reader.open(treeWalk.getObjectId(0), Constants.OBJ_BLOB);
+					String content = IOUtils.toString(loader.openStream(), StandardCharsets.UTF_8);
+					for (String filePath : found) {
+						res.put(filePath, content);
+					}
+				}
 			}
 			return res;
-		} catch(EVCSFileNotFound | EVCSBranchNotFound e) {
+		} catch(EVCSBranchNotFound e) {
 			throw e;
 		} catch (GitAPIException e) {
 			throw new EVCSException(e);
@@ -333,18 +1126,96 @@ public class GitVCS implements IVCS {
 		}
 	}
 
+	private ObjectLoader openFile(Git git, String branchName, String fileRelativePath, String revision) throws Exception {
+		Repository gitRepo = git.getRepository();
+		try (RevWalk revWalk = new RevWalk(gitRepo);
+			 TreeWalk treeWalk = new TreeWalk(gitRepo)) {
+
+			// note: working tree is not used. File is read from the object database only
+			RevCommit commit = resolveCommit(git, revWalk, branchName, revision);
+			treeWalk.addTree(commit.getTree());
+			treeWalk.setRecursive(true);
+			treeWalk.setFilter(PathFilter.create(fileRelativePath));
+			if (!treeWalk.next()) {
+				throw new EVCSFileNotFound(getRepoUrl(), getRealBranchName(branchName), fileRelativePath, revision);
+			}
+			return gitRepo.open(treeWalk.getObjectId(0), Constants.OBJ_BLOB);
+		}
+	}
+
+	/**
+	 * Resolves {@code revision} or head of remote branch {@code branchName} if {@code revision} is null. Revision is
+	 * looked up as a tag, a remote branch and a commit id, in that order, and the scope it is found in is synced. Working
+	 * copy is not synced if {@code revision} is a full commit id which exists locally already. Revision which is not
+	 * found is looked up again after tags are fetched since it could be a tag created after the last sync
+	 */
+	private RevCommit resolveCommit(Git git, RevWalk revWalk, String branchName, String revision) throws Exception {
+		Repository gitRepo = git.getRepository();
+		if (revision == null) {
+			String bn = getRealBranchName(branchName);
+			syncBranch(git, false, bn);
+			return revWalk.parseCommit(getRemoteHeadCommitId(gitRepo, bn));
+		}
+		// refs are fetched only, pull would change the working tree
+		if (gitRepo.exactRef(REFS_TAGS + revision) != null) {
+			sync(git, false, SYNC_SCOPE_TAGS);
+		} else if (gitRepo.exactRef(REFS_REMOTES_ORIGIN + revision) != null) {
+			syncBranch(git, false, revision);
+		} else if (COMMIT_ID_PATTERN.matcher(revision).matches() &&
+				(!ObjectId.isId(revision) || !gitRepo.hasObject(ObjectId.fromString(revision)))) {
+			sync(git, false, SYNC_SCOPE_BRANCHES);
+			if (ObjectId.isId(revision)) {
+				fetchCommitIfMissing(git, ObjectId.fromString(revision));
+			}
+		}
+		ObjectId revisionCommitId = lookupRevision(gitRepo, revision);
+		if (revisionCommitId == null) {
+			sync(git, true, SYNC_SCOPE_TAGS);
+			revisionCommitId = lookupRevision(gitRepo, revision);
+		}
+		if (revisionCommitId == null) {
+			throw new RefNotFoundException("revision " + revision + " is not found in " + getRepoUrl());
+		}
+		return revWalk.parseCommit(revisionCommitId);
+	}
+
+	/**
+	 * @return id of the tag, the remote branch head or the commit which {@code revision} names, looked up locally in that
+	 * order. Null if not found. Local branches are not looked up since they could be outdated
+	 */
+	private ObjectId lookupRevision(Repository gitRepo, String revision) throws IOException {
+		Ref ref = gitRepo.exactRef(REFS_TAGS + revision);
+		if (ref == null) {
+			ref = gitRepo.exactRef(REFS_REMOTES_ORIGIN + revision);
+		}
+		if (ref != null) {
+			return ref.getObjectId();
+		}
+		if (!COMMIT_ID_PATTERN.matcher(revision).matches()) {
+			return null;
+		}
+		try (ObjectReader reader = gitRepo.newObjectReader()) {
+			Collection<ObjectId> ids = reader.resolve(AbbreviatedObjectId.fromString(revision));
+			return ids.size() == 1 ? ids.iterator().next() : null;
+		}
+	}
+
 	@Override
 	public VCSCommit setFileContent(String branchName, List<VCSChangeListNode> vcsChangeList) {
 		if (vcsChangeList.isEmpty()) {
 			return null;
 		}
-		try (IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
-				 Git git = getLocalGit(wc);
-				 Repository gitRepo = git.getRepository()) {
+		try (GitRepositoryLock lock = lockForWrite();
+				 IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
+				 Git git = getLocalGit(wc)) {
+			Repository gitRepo = git.getRepository();
+
+			if (inCore) {
+				return setFileContentInCore(git, branchName, vcsChangeList);
+			}
 				
-			checkout(git, gitRepo, branchName, null);
+			checkout(git, gitRepo, branchName, null, true);
 			CommitCommand commitCommand = git.commit();
-			StringBuilder commitMessageSB = new StringBuilder();
 			for (VCSChangeListNode vcsChangeListNode : vcsChangeList) {
 				String filePath = vcsChangeListNode.getFilePath();
 				File file = new File(wc.getFolder(), filePath);
@@ -357,21 +1228,19 @@ public class GitVCS implements IVCS {
 							.call();
 				}
 
-				try (FileWriter fw = new FileWriter(file, false)) {
-					fw.write(vcsChangeListNode.getContent());
-				}
+				FileUtils.writeStringToFile(file, vcsChangeListNode.getContent(), StandardCharsets.UTF_8);
 				commitCommand.setOnly(filePath);
-				commitMessageSB.append(vcsChangeListNode.getLogMessage() + VCSChangeListNode.COMMIT_MESSAGES_SEPARATOR);
 			}
-			commitMessageSB.setLength(commitMessageSB.length() - VCSChangeListNode.COMMIT_MESSAGES_SEPARATOR.length());
 			RevCommit newCommit = commitCommand
-					.setMessage(commitMessageSB.toString())
+					.setMessage(getCommitMessage(vcsChangeList))
 					.call();
 
 			String bn = getRealBranchName(branchName);
 			RefSpec refSpec = new RefSpec(bn + ":" + bn);
 			push(git, refSpec);
 			return getVCSCommit(newCommit);
+		} catch (EVCSBranchNotFound e) {
+			throw e;
 		} catch (GitAPIException e) {
 			throw new EVCSException(e);
 		} catch (Exception e) {
@@ -379,18 +1248,75 @@ public class GitVCS implements IVCS {
 		}
 	}
 
+	private String getCommitMessage(List<VCSChangeListNode> vcsChangeList) {
+		StringBuilder commitMessageSB = new StringBuilder();
+		for (VCSChangeListNode vcsChangeListNode : vcsChangeList) {
+			commitMessageSB.append(vcsChangeListNode.getLogMessage() + VCSChangeListNode.COMMIT_MESSAGES_SEPARATOR);
+		}
+		commitMessageSB.setLength(commitMessageSB.length() - VCSChangeListNode.COMMIT_MESSAGES_SEPARATOR.length());
+		return commitMessageSB.toString();
+	}
+
+	/**
+	 * Builds new tree on top of the remote branch head within the object database and pushes the commit directly to the
+	 * remote branch. Neither working tree nor index are used
+	 */
+	private VCSCommit setFileContentInCore(Git git, String branchName, List<VCSChangeListNode> vcsChangeList) throws Exception {
+		Repository gitRepo = git.getRepository();
+		String bn = getRealBranchName(branchName);
+		syncBranch(git, true, bn);
+		Ref headRef = gitRepo.exactRef(REFS_REMOTES_ORIGIN + bn);
+		if (headRef == null) {
+			throw new EVCSBranchNotFound(getRepoUrl(), bn);
+		}
+		try (ObjectInserter inserter = gitRepo.newObjectInserter();
+			 RevWalk rw = new RevWalk(gitRepo)) {
+			RevCommit headCommit = rw.parseCommit(headRef.getObjectId());
+			DirCache dirCache = DirCache.read(rw.getObjectReader(), headCommit.getTree());
+			DirCacheEditor editor = dirCache.editor();
+			for (VCSChangeListNode vcsChangeListNode : vcsChangeList) {
+				final ObjectId blobId = inserter.insert(Constants.OBJ_BLOB,
+						vcsChangeListNode.getContent().getBytes(StandardCharsets.UTF_8));
+				editor.add(new PathEdit(vcsChangeListNode.getFilePath()) {
+					@Override
+					public void apply(DirCacheEntry ent) {
+						if (ent.getRawMode() == 0) {
+							ent.setFileMode(FileMode.REGULAR_FILE);
+						}
+						ent.setObjectId(blobId);
+					}
+				});
+			}
+			editor.finish();
+
+			CommitBuilder commitBuilder = new CommitBuilder();
+			PersonIdent ident = new PersonIdent(gitRepo);
+			commitBuilder.setTreeId(dirCache.writeTree(inserter));
+			commitBuilder.setParentId(headCommit);
+			commitBuilder.setAuthor(ident);
+			commitBuilder.setCommitter(ident);
+			commitBuilder.setMessage(getCommitMessage(vcsChangeList));
+			ObjectId newCommitId = inserter.insert(commitBuilder);
+			inserter.flush();
+
+			checkPushed(push(git, new RefSpec(newCommitId.getName() + ":" + REFS_HEADS + bn)));
+			return getVCSCommit(rw.parseCommit(newCommitId));
+		}
+	}
+
 	@Override
 	public VCSCommit setFileContent(String branchName, String filePath, String content, String commitMessage) {
 		return setFileContent(branchName, Collections.singletonList(new VCSChangeListNode(filePath, content, commitMessage)));
 	}
 
-	private void checkout(Git git, Repository gitRepo, String branchName, String revision) throws Exception {
+	private void checkout(Git git, Repository gitRepo, String branchName, String revision, boolean forceSync) throws Exception {
 		String bn = getRealBranchName(branchName);
 		CheckoutCommand cmd = git.checkout();
 		
-		pullAndFetch(git);
+		sync(git, forceSync);
 		
 		if (revision == null) {
+			fetchBranchIfMissing(git, bn);
 			cmd
 					.setStartPoint("origin/" + bn)
 					.setCreateBranch(gitRepo.exactRef(REFS_HEADS + bn) == null)
@@ -399,6 +1325,7 @@ public class GitVCS implements IVCS {
 					.call();
 			
 		} else {
+			fetchCommitIfMissing(git, ObjectId.fromString(revision));
 			try (RevWalk walk = new RevWalk(gitRepo)) {
 				RevCommit commit = walk.parseCommit(RevCommit.fromString(revision));
 				// note: entering "detached HEAD" state here
@@ -409,7 +1336,236 @@ public class GitVCS implements IVCS {
 		}
 	}
 
-	private void pullAndFetch(Git git) throws GitAPIException, WrongRepositoryStateException,
+	/**
+	 * Forces the next read operation of each working copy of the repository to synchronize with the remote. Useful if
+	 * {@link GitSyncPolicy#ON_DEMAND} or {@link GitSyncPolicy#PERIODIC} sync policy is used and the remote repository is
+	 * known to be changed.
+	 */
+	public void sync() {
+		invalidateSync();
+	}
+
+	private void invalidateSync() {
+		LAST_SYNC_TIMES.remove(repo.getRepoUrl());
+		REMOTE_REFS.remove(repo.getRepoUrl());
+	}
+
+	private void markSynced(Repository gitRepo, String scope) {
+		ConcurrentMap<String, Long> syncTimes = LAST_SYNC_TIMES.get(repo.getRepoUrl());
+		if (syncTimes == null) {
+			syncTimes = new ConcurrentHashMap<>();
+			ConcurrentMap<String, Long> existing = LAST_SYNC_TIMES.putIfAbsent(repo.getRepoUrl(), syncTimes);
+			if (existing != null) {
+				syncTimes = existing;
+			}
+		}
+		syncTimes.put(gitRepo.getDirectory().getPath() + scope, System.currentTimeMillis());
+	}
+
+	private boolean isSyncRequired(Repository gitRepo, String scope) throws URISyntaxException {
+		if (syncPolicy == GitSyncPolicy.ALWAYS) {
+			return true;
+		}
+		ConcurrentMap<String, Long> syncTimes = LAST_SYNC_TIMES.get(repo.getRepoUrl());
+		if (syncTimes == null) {
+			return true;
+		}
+		// full sync covers all scopes. Tags are covered only if the full sync fetches all of them, see pullAndFetch(Git)
+		Long lastSyncTime = scope.equals(SYNC_SCOPE_TAGS) && !isAllTagsFetched(gitRepo) ? null :
+				syncTimes.get(gitRepo.getDirectory().getPath() + SYNC_SCOPE_ALL);
+		Long lastScopeSyncTime = syncTimes.get(gitRepo.getDirectory().getPath() + scope);
+		if (lastSyncTime == null || (lastScopeSyncTime != null && lastScopeSyncTime > lastSyncTime)) {
+			lastSyncTime = lastScopeSyncTime;
+		}
+		if (lastSyncTime == null) {
+			return true;
+		}
+		return syncPolicy == GitSyncPolicy.PERIODIC && System.currentTimeMillis() - lastSyncTime >= syncIntervalMs;
+	}
+
+	/**
+	 * @return true if the working copy tracks all branches and tags are not disabled, so the full sync fetches all tags.
+	 * Otherwise tags are not fetched or are auto-followed only, see {@link GitCloneMode}
+	 */
+	private boolean isAllTagsFetched(Repository gitRepo) throws URISyntaxException {
+		RemoteConfig remoteConfig = new RemoteConfig(gitRepo.getConfig(), Constants.DEFAULT_REMOTE_NAME);
+		return remoteConfig.getTagOpt() != TagOpt.NO_TAGS && isAllBranchesTracked(gitRepo);
+	}
+
+	/**
+	 * Synchronizes all refs and the working tree. Used by operations which work with the working tree
+	 */
+	private void sync(Git git, boolean force) throws Exception {
+		sync(git, force, SYNC_SCOPE_ALL);
+	}
+
+	/**
+	 * Fetches the branch only. Working tree and other refs are not touched. Branch which is not tracked by the working
+	 * copy yet is fetched regardless of the sync policy, see {@link #fetchBranchIfMissing(Git, String)}
+	 */
+	private void syncBranch(Git git, boolean force, String branchName) throws Exception {
+		sync(git, force, SYNC_SCOPE_BRANCHES + branchName);
+		fetchBranchIfMissing(git, branchName);
+	}
+
+	private void sync(Git git, boolean force, String scope) throws Exception {
+		Repository gitRepo = git.getRepository();
+		if (!force && !isSyncRequired(gitRepo, scope)) {
+			return;
+		}
+		synchronized (getSyncLock(gitRepo.getDirectory())) {
+			// another reader of the shared working copy could sync it while waiting for the lock
+			if (!force && !isSyncRequired(gitRepo, scope)) {
+				return;
+			}
+			if (isMirrored(gitRepo)) {
+				// new objects are downloaded to the mirror, working copy fetch finds them there and updates refs only
+				for (String mirrorScope : getMirrorScopes(gitRepo, scope)) {
+					updateMirror(mirrorScope);
+				}
+			}
+			fetch(git, scope);
+			markSynced(gitRepo, scope);
+		}
+	}
+
+	/**
+	 * Fetches refs of the sync scope: {@link #SYNC_SCOPE_ALL} pulls the current branch and fetches all tracked branches
+	 * and tags, {@link #SYNC_SCOPE_BRANCHES} fetches tracked branches, {@link #SYNC_SCOPE_TAGS} fetches tags,
+	 * {@link #SYNC_SCOPE_BRANCHES} + branch name fetches the branch only. Deleted refs are pruned for the first three
+	 * scopes only since listing operations must not return them
+	 */
+	void fetch(Git git, String scope) throws Exception {
+		if (scope.equals(SYNC_SCOPE_ALL)) {
+			pullAndFetch(git);
+			return;
+		}
+		if (scope.equals(SYNC_SCOPE_TAGS)) {
+			git
+					.fetch()
+					.setRefSpecs(new RefSpec("+refs/tags/*:refs/tags/*"))
+					.setRemoveDeletedRefs(true)
+					.setCredentialsProvider(credentials)
+					.call();
+			return;
+		}
+		Repository gitRepo = git.getRepository();
+		RemoteConfig remoteConfig = new RemoteConfig(gitRepo.getConfig(), Constants.DEFAULT_REMOTE_NAME);
+		if (scope.equals(SYNC_SCOPE_BRANCHES)) {
+			git
+					.fetch()
+					.setRefSpecs(remoteConfig.getFetchRefSpecs())
+					.setTagOpt(TagOpt.NO_TAGS)
+					.setRemoveDeletedRefs(true)
+					.setCredentialsProvider(credentials)
+					.call();
+			return;
+		}
+		String branchName = scope.substring(SYNC_SCOPE_BRANCHES.length());
+		try {
+			git
+					.fetch()
+					.setRefSpecs(getTrackingRefSpec(branchName))
+					.setTagOpt(TagOpt.NO_TAGS)
+					.setCredentialsProvider(credentials)
+					.call();
+			// branch fetched into a single branch working copy is tracked from now on
+			trackBranch(gitRepo, branchName);
+		} catch (TransportException e) {
+			// fetch fails if the branch does not exist. Its tracking ref is removed then like prune does
+			Collection<Ref> remoteRefs = git
+					.lsRemote()
+					.setHeads(true)
+					.setCredentialsProvider(credentials)
+					.call();
+			for (Ref remoteRef : remoteRefs) {
+				if (remoteRef.getName().equals(REFS_HEADS + branchName)) {
+					throw e;
+				}
+			}
+			if (gitRepo.exactRef(REFS_REMOTES_ORIGIN + branchName) != null) {
+				RefUpdate refUpdate = gitRepo.updateRef(REFS_REMOTES_ORIGIN + branchName);
+				refUpdate.setForceUpdate(true);
+				refUpdate.delete();
+			}
+		}
+	}
+
+	/**
+	 * Sets how long a repository of a working copy is kept opened after last usage. Opened repositories keep pack
+	 * indexes and ref caches so repeated operations on the same working copy do not re-read them from disk. Working
+	 * copies shared by read operations are given back to their workspaces after the same idle timeout.
+	 */
+	public static void setRepositoryIdleTimeoutMs(long idleTimeoutMs) {
+		REPOSITORY_POOL.setIdleTimeoutMs(idleTimeoutMs);
+	}
+
+	/**
+	 * Closes all pooled repositories and releases working copies shared by read operations. Repositories which are in
+	 * use currently are closed once released. Shared working copies are released once running read operations finish,
+	 * so it must not be called within a read operation.
+	 */
+	public static void closeRepositories() {
+		REPOSITORY_POOL.clear();
+		for (String key : SHARED_WORKING_COPIES.keySet()) {
+			releaseSharedWorkingCopy(key, true);
+		}
+	}
+
+	/**
+	 * Gives the working copy shared by read operations back to the workspace under the write lock, so it is never
+	 * handed to a write operation while it is being read
+	 * 
+	 * @param wait if false then the working copy is kept if the lock is held by any operation
+	 */
+	private static void releaseSharedWorkingCopy(String key, boolean wait) {
+		Lock lock = REPOSITORY_LOCKS.get(key).writeLock();
+		if (wait) {
+			lock.lock();
+		} else if (!lock.tryLock()) {
+			return;
+		}
+		try {
+			SHARED_WORKING_COPY_READ_TIMES.remove(key);
+			IVCSLockedWorkingCopy wc = SHARED_WORKING_COPIES.remove(key);
+			if (wc != null) {
+				wc.close();
+			}
+		} catch (Exception e) {
+			// working copy lock is released anyway
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Releases shared working copies which are not read for {@link #setRepositoryIdleTimeoutMs(long)} milliseconds.
+	 * Working copies being read are skipped
+	 */
+	private static void releaseIdleSharedWorkingCopies() {
+		long now = System.currentTimeMillis();
+		for (Map.Entry<String, Long> entry : SHARED_WORKING_COPY_READ_TIMES.entrySet()) {
+			if (now - entry.getValue() >= REPOSITORY_POOL.getIdleTimeoutMs()) {
+				releaseSharedWorkingCopy(entry.getKey(), false);
+			}
+		}
+	}
+
+	/**
+	 * Closes the pooled repository and drops caches built from it since the working copy is going to be deleted or
+	 * re-created.
+	 */
+	private static void invalidateRepository(File gitDir) {
+		REPOSITORY_POOL.invalidate(gitDir);
+	}
+
+	private static void dropCaches(File gitDir) {
+		COMMIT_GRAPHS.remove(gitDir);
+		TAG_INDEXES.remove(gitDir);
+		ROOT_COMMITS.remove(gitDir);
+	}
+
+	void pullAndFetch(Git git) throws GitAPIException, WrongRepositoryStateException,
 			InvalidConfigurationException, DetachedHeadException, InvalidRemoteException, CanceledException,
 			RefNotFoundException, RefNotAdvertisedException, NoHeadException, TransportException {
 		git
@@ -420,87 +1576,211 @@ public class GitVCS implements IVCS {
 		// remove local branches and tags which are not exists on remote
 		// See https://github.com/scm4j/scm4j-releaser/issues/59
 		// if executed first then version is considered as modified. So have uncommited change: 19.5-SNAPSHOT -> 18.5-SNAPSHOT
+		// Only branches tracked by the working copy are fetched, see GitCloneMode
+		RemoteConfig remoteConfig;
+		try {
+			remoteConfig = new RemoteConfig(git.getRepository().getConfig(), Constants.DEFAULT_REMOTE_NAME);
+		} catch (URISyntaxException e) {
+			throw new InvalidRemoteException(e.getMessage());
+		}
+		List<RefSpec> refSpecs = new ArrayList<>();
+		boolean trackAll = false;
+		for (RefSpec refSpec : remoteConfig.getFetchRefSpecs()) {
+			refSpecs.add(new RefSpec("+" + refSpec.getSource() + ":" + refSpec.getSource()));
+			trackAll |= refSpec.isWildcard();
+		}
+		TagOpt tagOpt = null;
+		if (remoteConfig.getTagOpt() == TagOpt.NO_TAGS) {
+			tagOpt = TagOpt.NO_TAGS;
+		} else if (trackAll) {
+			refSpecs.add(new RefSpec("+refs/tags/*:refs/tags/*"));
+		} else {
+			// tags of other branches history are not fetched
+			tagOpt = TagOpt.AUTO_FOLLOW;
+		}
 		git
 				.fetch()
-				.setRefSpecs(
-						new RefSpec("+refs/heads/*:refs/heads/*"),
-						new RefSpec("+refs/tags/*:refs/tags/*"))
+				.setRefSpecs(refSpecs)
+				.setTagOpt(tagOpt)
 				.setRemoveDeletedRefs(true)
 				.setCredentialsProvider(credentials)
 				.call();
-	}
-
-	@Override
-	public List<VCSDiffEntry> getBranchesDiff(String srcBranchName, String dstBranchName) {
-		try (IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
-			 Git git = getLocalGit(wc);
-			 Repository gitRepo = git.getRepository();
-			 RevWalk walk = new RevWalk(gitRepo)) {
-
-			// https://stackoverflow.com/questions/34025577/jgit-how-to-show-changed-files-in-merge-commit
-
-			String srcBN = getRealBranchName(srcBranchName);
-			String dstBN = getRealBranchName(dstBranchName);
-
-			RevCommit destHeadCommit = walk.parseCommit(git.getRepository().resolve("remotes/origin/" + dstBN));
-
-			ObjectReader reader = gitRepo.newObjectReader();
-
-			checkout(git, gitRepo, dstBranchName, null);
+	}
 
+	/**
+	 * Fetches tags if the working copy is cloned in {@link GitCloneMode#NO_TAGS} mode
+	 */
+	private void fetchTagsIfNotSynced(Git git) throws Exception {
+		RemoteConfig remoteConfig = new RemoteConfig(git.getRepository().getConfig(), Constants.DEFAULT_REMOTE_NAME);
+		if (remoteConfig.getTagOpt() == TagOpt.NO_TAGS) {
 			git
-					.merge()
-					.include(gitRepo.findRef("origin/" + srcBN))
-					.setCommit(false)
-					.call();
-
-			CanonicalTreeParser srcTreeIter = new CanonicalTreeParser();
-			srcTreeIter.reset(reader, destHeadCommit.getTree());
-
-			List<DiffEntry> diffs = git
-					.diff()
-					.setOldTree(srcTreeIter)
+					.fetch()
+					.setRefSpecs(new RefSpec("+refs/tags/*:refs/tags/*"))
+					.setRemoveDeletedRefs(true)
+					.setCredentialsProvider(credentials)
 					.call();
+		}
+	}
 
-			List<VCSDiffEntry> res = new ArrayList<>();
-			for (DiffEntry diffEntry : diffs) {
-				ByteArrayOutputStream baos = new ByteArrayOutputStream();
-				try (DiffFormatter formatter = new DiffFormatter(baos)) {
-					formatter.setRepository(git.getRepository());
-					formatter.format(diffEntry);
+	@Override
+	public List<VCSDiffEntry> getBranchesDiff(String srcBranchName, String dstBranchName) {
+		try (GitRepositoryLock lock = lockForRead();
+			 Git git = getLocalGit(lock.getWorkingCopy())) {
+			ObjectId[] trees = getBranchesDiffTrees(git, srcBranchName, dstBranchName);
+			try (GitBranchesDiff diff = new GitBranchesDiff(this, git.getRepository(), trees[0], trees[1], 0, 0,
+					Collections.<AutoCloseable>emptyList())) {
+				List<VCSDiffEntry> res = new ArrayList<>();
+				for (GitDiffEntry diffEntry : diff.getEntries()) {
+					res.add(diffEntry.toVCSDiffEntry());
 				}
-				VCSDiffEntry vcsEntry = new VCSDiffEntry(
-						diffEntry.getPath(diffEntry.getChangeType() == ChangeType.ADD ? Side.NEW : Side.OLD),
-						gitChangeTypeToVCSChangeType(diffEntry.getChangeType()), 
-						baos.toString("UTF-8"));
-				res.add(vcsEntry);
+				return res;
 			}
+		} catch (EVCSBranchNotFound e) {
+			throw e;
+		} catch (GitAPIException e) {
+			throw new EVCSException(e);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Same as {@link #getBranchesDiff(String, String)} but unified diffs are formatted on demand only and a page of
+	 * changed files is returned. Returned diff keeps own working copy locked until closed since diffs are formatted
+	 * from its object database, so the working copy shared by read operations and the repository lock are not used.
+	 * The diff must be closed.
+	 * 
+	 * @param offset count of changed files to skip
+	 * @param limit max count of changed files to return. 0 or less means no limit
+	 */
+	public GitBranchesDiff getBranchesDiff(String srcBranchName, String dstBranchName, int offset, int limit) {
+		List<AutoCloseable> resources = new ArrayList<>();
+		try {
+			IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
+			resources.add(0, wc);
+			Git git = getLocalGit(wc);
+			resources.add(0, git);
+			Repository gitRepo = git.getRepository();
+
+			ObjectId[] trees = getBranchesDiffTrees(git, srcBranchName, dstBranchName);
+			GitBranchesDiff res = new GitBranchesDiff(this, gitRepo, trees[0], trees[1], offset, limit, resources);
+			resources = Collections.emptyList();
 			return res;
+		} catch (EVCSBranchNotFound e) {
+			throw e;
 		} catch (GitAPIException e) {
 			throw new EVCSException(e);
 		} catch (Exception e) {
 			throw new RuntimeException(e);
+		} finally {
+			for (AutoCloseable resource : resources) {
+				try {
+					resource.close();
+				} catch (Exception e) {
+					// exception is thrown already
+				}
+			}
+		}
+	}
+
+	/**
+	 * Computes changes which merge of {@code srcBranchName} into {@code dstBranchName} would bring. Merge is executed
+	 * in-core so neither working tree nor index are touched. If the merge has conflicts then changes between the merge
+	 * base and the source branch head are returned
+	 * 
+	 * @return ids of old and new trees. Old tree id is null if branches have no common history
+	 */
+	private ObjectId[] getBranchesDiffTrees(Git git, String srcBranchName, String dstBranchName) throws Exception {
+		Repository gitRepo = git.getRepository();
+		syncBranch(git, false, getRealBranchName(srcBranchName));
+		syncBranch(git, false, getRealBranchName(dstBranchName));
+		try (RevWalk rw = new RevWalk(gitRepo)) {
+			RevCommit srcHeadCommit = getRemoteHeadCommit(gitRepo, rw, srcBranchName);
+			RevCommit dstHeadCommit = getRemoteHeadCommit(gitRepo, rw, dstBranchName);
+
+			ThreeWayMerger merger = MergeStrategy.RECURSIVE.newMerger(gitRepo, true);
+			if (merger.merge(dstHeadCommit, srcHeadCommit)) {
+				return new ObjectId[] {dstHeadCommit.getTree(), merger.getResultTreeId()};
+			}
+			GitCommitGraph commitGraph = getCommitGraph(gitRepo);
+			commitGraph.update(gitRepo, srcHeadCommit);
+			commitGraph.update(gitRepo, dstHeadCommit);
+			ObjectId baseCommitId = commitGraph.getMergeBase(srcHeadCommit, dstHeadCommit);
+			return new ObjectId[] {baseCommitId == null ? null : rw.parseCommit(baseCommitId).getTree(),
+					srcHeadCommit.getTree()};
+		}
+	}
+
+	private RevCommit getRemoteHeadCommit(Repository gitRepo, RevWalk rw, String branchName) throws Exception {
+		return rw.parseCommit(getRemoteHeadCommitId(gitRepo, getRealBranchName(branchName)));
+	}
+
+	private ObjectId getRemoteHeadCommitId(Repository gitRepo, String bn) throws Exception {
+		Ref ref = gitRepo.exactRef(REFS_REMOTES_ORIGIN + bn);
+		if (ref == null) {
+			throw new EVCSBranchNotFound(getRepoUrl(), bn);
 		}
+		return ref.getObjectId();
 	}
 
 	@Override
 	public Set<String> getBranches(String path) {
-		try (IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
-			 Git git = getLocalGit(wc);
-			 Repository gitRepo = git.getRepository()) {
-			
-			pullAndFetch(git);
+		if (listRemoteRefs) {
+			return filterBranches(listRemoteRefs().values(), REFS_HEADS, path);
+		}
+		try (GitRepositoryLock lock = lockForRead();
+			 Git git = getLocalGit(lock.getWorkingCopy())) {
+			Repository gitRepo = git.getRepository();
 			
-			Collection<Ref> refs = gitRepo.getRefDatabase().getRefs(REFS_REMOTES_ORIGIN).values();
-			Set<String> res = new HashSet<>();
-			String bn;
-			for (Ref ref : refs) {
-				bn = ref.getName().replace(REFS_REMOTES_ORIGIN, "");
-				if (bn.startsWith(path == null ? "" : path)) {
-					res.add(bn);
+			if (isAllBranchesTracked(gitRepo)) {
+				sync(git, false, SYNC_SCOPE_BRANCHES);
+				return filterBranches(gitRepo.getRefDatabase().getRefs(REFS_REMOTES_ORIGIN).values(),
+						REFS_REMOTES_ORIGIN, path);
+			}
+			// not tracked branches are listed without fetching
+			return filterBranches(listRemoteRefs().values(), REFS_HEADS, path);
+		} catch (GitAPIException e) {
+			throw new EVCSException(e);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private Set<String> filterBranches(Collection<Ref> refs, String refsPrefix, String path) {
+		Set<String> res = new HashSet<>();
+		String bn;
+		for (Ref ref : refs) {
+			if (!ref.getName().startsWith(refsPrefix)) {
+				continue;
+			}
+			bn = ref.getName().replace(refsPrefix, "");
+			if (bn.startsWith(path == null ? "" : path)) {
+				res.add(bn);
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * @return names of all tags sorted. Tag objects are not parsed. If {@link #isListRemoteRefs()} then names are
+	 * listed from the remote repository without a working copy
+	 */
+	public List<String> getTagNames() {
+		if (listRemoteRefs) {
+			List<String> res = new ArrayList<>();
+			for (String refName : listRemoteRefs().keySet()) {
+				if (refName.startsWith(REFS_TAGS)) {
+					res.add(refName.substring(REFS_TAGS.length()));
 				}
 			}
 			return res;
+		}
+		try (GitRepositoryLock lock = lockForRead();
+			 Git git = getLocalGit(lock.getWorkingCopy())) {
+			Repository gitRepo = git.getRepository();
+
+			sync(git, false, SYNC_SCOPE_TAGS);
+			return new ArrayList<>(new TreeMap<>(gitRepo.getRefDatabase().getRefs(REFS_TAGS)).keySet());
 		} catch (GitAPIException e) {
 			throw new EVCSException(e);
 		} catch (Exception e) {
@@ -508,28 +1788,94 @@ public class GitVCS implements IVCS {
 		}
 	}
 
+	/**
+	 * @return heads and tags of the remote repository sorted by ref name. Cached for
+	 * {@link #getRemoteRefsTtlMs()} milliseconds per repository url
+	 */
+	private Map<String, Ref> listRemoteRefs() {
+		RemoteRefs remoteRefs = REMOTE_REFS.get(repo.getRepoUrl());
+		if (remoteRefs != null && System.currentTimeMillis() - remoteRefs.time < remoteRefsTtlMs) {
+			return remoteRefs.refs;
+		}
+		try {
+			long time = System.currentTimeMillis();
+			Map<String, Ref> refs = new TreeMap<>(Git
+					.lsRemoteRepository()
+					.setRemote(repo.getRepoUrl())
+					.setHeads(true)
+					.setTags(true)
+					.setCredentialsProvider(credentials)
+					.callAsMap());
+			REMOTE_REFS.put(repo.getRepoUrl(), new RemoteRefs(time, Collections.unmodifiableMap(refs)));
+			return refs;
+		} catch (GitAPIException e) {
+			throw new EVCSException(e);
+		}
+	}
+
+	private static class RemoteRefs {
+		final long time;
+		final Map<String, Ref> refs;
+
+		RemoteRefs(long time, Map<String, Ref> refs) {
+			this.time = time;
+			this.refs = refs;
+		}
+	}
+
 	@Override
 	public List<VCSCommit> log(String branchName, int limit) {
-		try (IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
-			 Git git = getLocalGit(wc);
-			 Repository gitRepo = git.getRepository()) {
-				
-			LogCommand log = git
-					.log()
-					.add(gitRepo.resolve(REFS_REMOTES_ORIGIN + getRealBranchName(branchName)));
+		try (GitRepositoryLock lock = lockForRead();
+			 Git git = getLocalGit(lock.getWorkingCopy())) {
+			Repository gitRepo = git.getRepository();
+
+			fetchBranchIfMissing(git, getRealBranchName(branchName));
+			final List<VCSCommit> res = new ArrayList<>();
+			walkLog(gitRepo, gitRepo.resolve(REFS_REMOTES_ORIGIN + getRealBranchName(branchName)), true,
+					new Predicate<VCSCommit>() {
+						@Override
+						public boolean test(VCSCommit commit) {
+							res.add(commit);
+							return limit <= 0 || res.size() < limit;
+						}
+					});
+			return res;
+		} catch (GitAPIException e) {
+			throw new EVCSException(e);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
 
-			if (limit > 0) {
-				log.setMaxCount(limit);
-			}
-			
-			Iterable<RevCommit> commits = log.call();
-			
-			List<VCSCommit> res = new ArrayList<>();
-			for (RevCommit commit : commits) {
-				res.add(getVCSCommit(commit));
+	/**
+	 * Walks commits of the branch from {@code startRevision} to the root, most recent first, and passes each commit to
+	 * {@code visitor} as soon as it is read. Commits are not collected so the whole history could be visited using
+	 * constant memory.
+	 *
+	 * @param startRevision commit to start from. Null means the branch head
+	 * @param withMessages if false then commit bodies are not kept in memory at all and visited commits have revision
+	 * only, without message and author
+	 * @param visitor returns false to stop the walk
+	 */
+	public void log(String branchName, String startRevision, boolean withMessages, Predicate<VCSCommit> visitor) {
+		try (GitRepositoryLock lock = lockForRead();
+			 Git git = getLocalGit(lock.getWorkingCopy())) {
+			Repository gitRepo = git.getRepository();
+
+			syncBranch(git, false, getRealBranchName(branchName));
+			ObjectId startCommitId;
+			if (startRevision == null) {
+				Ref ref = gitRepo.exactRef(REFS_REMOTES_ORIGIN + getRealBranchName(branchName));
+				if (ref == null) {
+					throw new EVCSBranchNotFound(getRepoUrl(), getRealBranchName(branchName));
+				}
+				startCommitId = ref.getObjectId();
+			} else {
+				startCommitId = ObjectId.fromString(startRevision);
 			}
-			
-			return res;
+			walkLog(gitRepo, startCommitId, withMessages, visitor);
+		} catch (EVCSBranchNotFound e) {
+			throw e;
 		} catch (GitAPIException e) {
 			throw new EVCSException(e);
 		} catch (Exception e) {
@@ -537,6 +1883,27 @@ public class GitVCS implements IVCS {
 		}
 	}
 
+	private void walkLog(Repository gitRepo, ObjectId startCommitId, boolean withMessages,
+			Predicate<VCSCommit> visitor) throws IOException {
+		try (RevWalk rw = new RevWalk(gitRepo)) {
+			rw.setRetainBody(withMessages);
+			rw.markStart(rw.parseCommit(startCommitId));
+			for (RevCommit commit : rw) {
+				VCSCommit vcsCommit;
+				if (withMessages) {
+					vcsCommit = getVCSCommit(commit);
+					// the walk keeps all visited commits so bodies are released as soon as they are converted
+					commit.disposeBody();
+				} else {
+					vcsCommit = new VCSCommit(commit.getName(), null, null);
+				}
+				if (!visitor.test(vcsCommit)) {
+					break;
+				}
+			}
+		}
+	}
+
 	@Override
 	public String getVCSTypeString() {
 		return GIT_VCS_TYPE_STRING;
@@ -544,11 +1911,12 @@ public class GitVCS implements IVCS {
 
 	@Override
 	public VCSCommit removeFile(String branchName, String filePath, String commitMessage) {
-		try (IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
-			 Git git = getLocalGit(wc);
-			 Repository gitRepo = git.getRepository()) {
+		try (GitRepositoryLock lock = lockForWrite();
+			 IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
+			 Git git = getLocalGit(wc)) {
+			Repository gitRepo = git.getRepository();
 
-			checkout(git, gitRepo, branchName, null);
+			checkout(git, gitRepo, branchName, null, true);
 			
 			git
 					.rm()
@@ -562,7 +1930,8 @@ public class GitVCS implements IVCS {
 					.setAll(true)
 					.call();
 
-			push(git, null);
+			String bn = getRealBranchName(branchName);
+			push(git, new RefSpec(bn + ":" + bn));
 			return getVCSCommit(res);
 		} catch (GitAPIException e) {
 			throw new EVCSException(e);
@@ -571,25 +1940,49 @@ public class GitVCS implements IVCS {
 		}
 	}
 
-	private VCSCommit getVCSCommit(RevCommit revCommit) {
+	private GitCommitGraph getCommitGraph(Repository gitRepo) {
+		GitCommitGraph commitGraph = COMMIT_GRAPHS.get(gitRepo.getDirectory());
+		if (commitGraph == null) {
+			commitGraph = new GitCommitGraph();
+			GitCommitGraph existing = COMMIT_GRAPHS.putIfAbsent(gitRepo.getDirectory(), commitGraph);
+			if (existing != null) {
+				commitGraph = existing;
+			}
+		}
+		return commitGraph;
+	}
+
+	private GitTagIndex getTagIndex(Repository gitRepo) {
+		GitTagIndex tagIndex = TAG_INDEXES.get(gitRepo.getDirectory());
+		if (tagIndex == null) {
+			tagIndex = new GitTagIndex();
+			GitTagIndex existing = TAG_INDEXES.putIfAbsent(gitRepo.getDirectory(), tagIndex);
+			if (existing != null) {
+				tagIndex = existing;
+			}
+		}
+		return tagIndex;
+	}
+
+	static VCSCommit getVCSCommit(RevCommit revCommit) {
 		return new VCSCommit(revCommit.getName(), revCommit.getFullMessage(), revCommit.getAuthorIdent().getName());
 	}
 
 	public List<VCSCommit> getCommitsRange(String branchName, String startRevision, String endRevision) {
-		try (IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
-			 Git git = getLocalGit(wc);
-			 Repository gitRepo = git.getRepository()) {
-
-			checkout(git, gitRepo, branchName, null);
+		try (GitRepositoryLock lock = lockForRead();
+			 Git git = getLocalGit(lock.getWorkingCopy())) {
+			Repository gitRepo = git.getRepository();
 
 			String bn = getRealBranchName(branchName);
+			syncBranch(git, false, bn);
+			ObjectId headCommitId = getRemoteHeadCommitId(gitRepo, bn);
 
 			ObjectId startCommit = startRevision == null ?
-					getInitialCommit(gitRepo, bn).getId() :
+					getInitialCommit(gitRepo, REFS_REMOTES_ORIGIN + bn) :
 					ObjectId.fromString(startRevision);
 
 			ObjectId endCommit = endRevision == null ?
-					gitRepo.exactRef(REFS_HEADS + bn).getObjectId() :
+					headCommitId :
 					ObjectId.fromString(endRevision);
 
 			Iterable<RevCommit> commits;
@@ -606,6 +1999,8 @@ public class GitVCS implements IVCS {
 
 			Collections.reverse(res);
 			return res;
+		} catch (EVCSBranchNotFound e) {
+			throw e;
 		} catch (GitAPIException e) {
 			throw new EVCSException(e);
 		} catch (Exception e) {
@@ -613,66 +2008,94 @@ public class GitVCS implements IVCS {
 		}
 	}
 	
-	private RevCommit getInitialCommit(Repository gitRepo, String branchName) throws Exception {
-		try (RevWalk rw = new RevWalk(gitRepo)) {
-			Ref ref = gitRepo.exactRef(REFS_HEADS + branchName);
-			ObjectId headCommitId = ref.getObjectId();
-			RevCommit root = rw.parseCommit(headCommitId);
-			rw.markStart(root);
-			rw.sort(RevSort.REVERSE);
-			return rw.next();
+	/**
+	 * Root commits are cached per branch. Cached root is valid while the branch head it was found for is an ancestor of
+	 * the current head. Otherwise the root is found by the commit graph without parsing commits
+	 */
+	private ObjectId getInitialCommit(Repository gitRepo, String refName) throws Exception {
+		ObjectId headCommitId = gitRepo.exactRef(refName).getObjectId();
+		ConcurrentMap<String, ObjectId[]> rootCommits = ROOT_COMMITS.get(gitRepo.getDirectory());
+		if (rootCommits == null) {
+			rootCommits = new ConcurrentHashMap<>();
+			ConcurrentMap<String, ObjectId[]> existing = ROOT_COMMITS.putIfAbsent(gitRepo.getDirectory(), rootCommits);
+			if (existing != null) {
+				rootCommits = existing;
+			}
+		}
+		GitCommitGraph commitGraph = getCommitGraph(gitRepo);
+		commitGraph.update(gitRepo, headCommitId);
+		ObjectId[] cached = rootCommits.get(refName);
+		if (cached != null && commitGraph.contains(cached[0]) && commitGraph.isAncestor(cached[0], headCommitId)) {
+			rootCommits.put(refName, new ObjectId[] {headCommitId, cached[1]});
+			return cached[1];
 		}
+		ObjectId rootCommitId = commitGraph.getRoot(headCommitId);
+		rootCommits.put(refName, new ObjectId[] {headCommitId, rootCommitId});
+		return rootCommitId;
 	}
 
 	@Override
 	public List<VCSCommit> getCommitsRange(String branchName, String startRevision, WalkDirection direction,
 										   int limit) {
-		try (IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
-			 Git git = getLocalGit(wc);
-			 Repository gitRepo = git.getRepository();
-			 RevWalk rw = new RevWalk(gitRepo)) {
+		try (GitRepositoryLock lock = lockForRead();
+			 Git git = getLocalGit(lock.getWorkingCopy());
+			 RevWalk rw = new RevWalk(git.getRepository())) {
+			Repository gitRepo = git.getRepository();
 
-			checkout(git, gitRepo, branchName, null);
 			String bn = getRealBranchName(branchName);
+			syncBranch(git, false, bn);
+			ObjectId headCommitId = getRemoteHeadCommitId(gitRepo, bn);
 
 			List<VCSCommit> res = new ArrayList<>();
-			RevCommit startCommit;
-			RevCommit endCommit;
 			if (direction == WalkDirection.ASC) {
-				ObjectId headCommitId = gitRepo.exactRef(REFS_REMOTES_ORIGIN + bn).getObjectId();
-				startCommit = rw.parseCommit( headCommitId );
-				ObjectId startCommitObjectId = startRevision == null ?
-						getInitialCommit(gitRepo, bn).getId() :
-						ObjectId.fromString(startRevision);
-				endCommit = rw.parseCommit(startCommitObjectId);
+				GitCommitGraph commitGraph = getCommitGraph(gitRepo);
+				ObjectId startCommitId = startRevision == null ? null : ObjectId.fromString(startRevision);
+				if (startCommitId != null && !commitGraph.contains(startCommitId)) {
+					// filling the graph would parse the whole history below the start commit. The range is walked
+					// instead: ancestors of the start commit are marked uninteresting so they are not walked
+					RevCommit startCommit = rw.parseCommit(startCommitId);
+					rw.markStart(rw.parseCommit(headCommitId));
+					for (RevCommit parent : startCommit.getParents()) {
+						rw.markUninteresting(parent);
+					}
+					rw.sort(RevSort.COMMIT_TIME_DESC);
+					rw.sort(RevSort.REVERSE, true);
+					for (RevCommit commit : rw) {
+						res.add(getVCSCommit(commit));
+						if (limit > 0 && res.size() >= limit) {
+							break;
+						}
+					}
+				} else {
+					// the range is computed by the commit graph and only commits to return are parsed. Ancestors of the
+					// start commit are known to the graph already so only new commits are added
+					commitGraph.update(gitRepo, headCommitId);
+					ObjectId[] excluded = startCommitId == null ? new ObjectId[0] : commitGraph.getParents(startCommitId);
+					List<ObjectId> range = commitGraph.getRange(headCommitId, excluded);
+					Collections.reverse(range);
+					if (limit > 0 && range.size() > limit) {
+						range = range.subList(0, limit);
+					}
+					for (ObjectId commitId : range) {
+						res.add(getVCSCommit(rw.parseCommit(commitId)));
+					}
+				}
 			} else {
-				ObjectId endCommitObjectId = startRevision == null ?
-						gitRepo.exactRef(REFS_REMOTES_ORIGIN + bn).getObjectId() :
+				ObjectId startCommitId = startRevision == null ?
+						headCommitId :
 						ObjectId.fromString(startRevision);
-				startCommit = rw.parseCommit( endCommitObjectId );
-				endCommit = getInitialCommit(gitRepo, bn);
-			}
-
-			rw.markStart(startCommit);
-
-			RevCommit commit = rw.next();
-			while (commit != null) {
-				VCSCommit vcsCommit = getVCSCommit(commit);
-				res.add(vcsCommit);
-				if (commit.getName().equals(endCommit.getName())) {
-					break;
+				rw.markStart(rw.parseCommit(startCommitId));
+				for (RevCommit commit : rw) {
+					res.add(getVCSCommit(commit));
+					if (limit > 0 && res.size() >= limit) {
+						break;
+					}
 				}
-				commit = rw.next();
-			}
-
-			if (direction == WalkDirection.ASC) {
-				Collections.reverse(res);
-			}
-			if (limit > 0 && res.size() > limit) {
-				res = res.subList(0, limit);
 			}
 
 			return res;
+		} catch (EVCSBranchNotFound e) {
+			throw e;
 		} catch (GitAPIException e) {
 			throw new EVCSException(e);
 		} catch (Exception e) {
@@ -682,12 +2105,12 @@ public class GitVCS implements IVCS {
 
 	@Override
 	public VCSCommit getHeadCommit (String branchName) {
-		try (IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
-			 Git git = getLocalGit(wc);
-			 Repository gitRepo = git.getRepository();
-			 RevWalk rw = new RevWalk(gitRepo)) {
+		try (GitRepositoryLock lock = lockForRead();
+			 Git git = getLocalGit(lock.getWorkingCopy());
+			 RevWalk rw = new RevWalk(git.getRepository())) {
+			Repository gitRepo = git.getRepository();
 
-			checkout(git, gitRepo, null, null);
+			syncBranch(git, false, getRealBranchName(branchName));
 
 			Ref ref = gitRepo.exactRef(REFS_REMOTES_ORIGIN + getRealBranchName(branchName));
 			if (ref == null) {
@@ -710,13 +2133,63 @@ public class GitVCS implements IVCS {
 
 	@Override
 	public Boolean fileExists(String branchName, String filePath) {
-		try (IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
-			 Git git = getLocalGit(wc);
-			 Repository gitRepo = git.getRepository()) {
+		return filesExist(branchName, Collections.singletonList(filePath)).get(filePath);
+	}
 
-			checkout(git, gitRepo, branchName, null);
-			
-			return new File(wc.getFolder(), filePath).exists();
+	/**
+	 * Checks existence of files or folders in the head of the branch {@code branchName}. Branch is not checked out, all
+	 * paths are resolved within a single tree walk
+	 * 
+	 * @return map of each of {@code filePaths} to its existence
+	 */
+	public Map<String, Boolean> filesExist(String branchName, Collection<String> filePaths) {
+		try (GitRepositoryLock lock = lockForRead();
+			 Git git = getLocalGit(lock.getWorkingCopy());
+			 RevWalk revWalk = new RevWalk(git.getRepository());
+			 TreeWalk treeWalk = new TreeWalk(git.getRepository())) {
+
+			Map<String, Boolean> res = new HashMap<>();
+			Map<String, List<String>> normalizedPaths = new HashMap<>();
+			for (String filePath : filePaths) {
+				String normalizedPath = StringUtils.stripEnd(filePath, "/");
+				// root of the repository always exists
+				res.put(filePath, normalizedPath.isEmpty());
+				if (normalizedPath.isEmpty()) {
+					continue;
+				}
+				if (!normalizedPaths.containsKey(normalizedPath)) {
+					normalizedPaths.put(normalizedPath, new ArrayList<String>());
+				}
+				normalizedPaths.get(normalizedPath).add(filePath);
+			}
+			if (res.isEmpty()) {
+				return res;
+			}
+
+			RevCommit commit = resolveCommit(git, revWalk, branchName, null);
+			if (normalizedPaths.isEmpty()) {
+				return res;
+			}
+			treeWalk.addTree(commit.getTree());
+			treeWalk.setRecursive(true);
+			treeWalk.setFilter(PathFilterGroup.createFromStrings(normalizedPaths.keySet()));
+			while (!normalizedPaths.isEmpty() && treeWalk.next()) {
+				// folder exists if any file within it exists
+				String path = treeWalk.getPathString();
+				int pos = path.length();
+				while (pos > 0) {
+					List<String> found = normalizedPaths.remove(path.substring(0, pos));
+					if (found != null) {
+						for (String filePath : found) {
+							res.put(filePath, true);
+						}
+					}
+					pos = path.lastIndexOf('/', pos - 1);
+				}
+			}
+			return res;
+		} catch(EVCSBranchNotFound e) {
+			throw e;
 		} catch (GitAPIException e) {
 			throw new EVCSException(e);
 		} catch (Exception e) {
@@ -726,16 +2199,21 @@ public class GitVCS implements IVCS {
 
 	@Override
 	public VCSTag createTag(String branchName, String tagName, String tagMessage, String revisionToTag) throws EVCSTagExists {
-		try (IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
+		try (GitRepositoryLock lock = lockForWrite();
+			 IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
 			 Git git = getLocalGit(wc);
-			 Repository gitRepo = git.getRepository();
-			 RevWalk rw = new RevWalk(gitRepo)) {
-
-			pullAndFetch(git);
+			 RevWalk rw = new RevWalk(git.getRepository())) {
+			Repository gitRepo = git.getRepository();
 
-			checkout(git, gitRepo, branchName, null);
+			checkout(git, gitRepo, branchName, null, true);
+			fetchTagsIfNotSynced(git);
 
-			RevCommit commitToTag = revisionToTag == null ? null : rw.parseCommit(ObjectId.fromString(revisionToTag));
+			RevCommit commitToTag = null;
+			if (revisionToTag != null) {
+				// commit of a branch which is not tracked by the working copy is fetched on demand
+				fetchCommitIfMissing(git, ObjectId.fromString(revisionToTag));
+				commitToTag = rw.parseCommit(ObjectId.fromString(revisionToTag));
+			}
 
 			Ref ref = git
 					.tag()
@@ -762,44 +2240,83 @@ public class GitVCS implements IVCS {
 
 	@Override
 	public List<VCSTag> getTags() {
-		try (IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
-			 Git git = getLocalGit(wc);
-			 Repository gitRepo = git.getRepository();
-			 RevWalk rw = new RevWalk(gitRepo)) {
+		try (GitRepositoryLock lock = lockForRead();
+			 Git git = getLocalGit(lock.getWorkingCopy())) {
+			Repository gitRepo = git.getRepository();
+
+			sync(git, false, SYNC_SCOPE_TAGS);
+			GitTagIndex tagIndex = getTagIndex(gitRepo);
+			tagIndex.update(gitRepo);
+			return tagIndex.getTags(gitRepo);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
 
-			pullAndFetch(git);
-			Collection<Ref> tagRefs = gitRepo.getTags().values();
-	        List<VCSTag> res = new ArrayList<>();
-	        RevCommit revCommit;
-	        for (Ref ref : tagRefs) {
-	        	ObjectId relatedCommitObjectId = ref.getPeeledObjectId() == null ? ref.getObjectId() : ref.getPeeledObjectId();
-	        	revCommit = rw.parseCommit(relatedCommitObjectId);
-	        	VCSCommit relatedCommit = getVCSCommit(revCommit);
-	        	RevObject revObject = rw.parseAny(ref.getObjectId());
-	        	VCSTag tag;
-	        	if (revObject instanceof RevTag) {
-	        		RevTag revTag = (RevTag) revObject;
-	        		tag = new VCSTag(revTag.getTagName(), revTag.getFullMessage(), revTag.getTaggerIdent().getName(), relatedCommit);
-	        	} else  {
-	        		// tag is unannotated
-	        		tag = new VCSTag(ref.getName().replace(REFS_TAGS, ""), null, null, relatedCommit);
-	        	}
-	        	res.add(tag);
-	        }
-	        return res;
+	/**
+	 * Lists tags which names match a glob pattern. Only tags under the literal directory prefix of the pattern are read
+	 * from the ref database and only matching tags are parsed, so a narrow pattern is cheap even if the repository
+	 * contains many tags.
+	 *
+	 * @param namePattern tag name glob, e.g. "release/1.*". {@code *} matches any characters, {@code ?} matches one
+	 * character. Null or empty means all tags
+	 * @param order order of the result. Null means {@link GitTagOrder#NAME}
+	 * @param limit max count of tags to return. 0 or less means no limit
+	 */
+	public List<VCSTag> getTags(String namePattern, GitTagOrder order, int limit) {
+		try (GitRepositoryLock lock = lockForRead();
+			 Git git = getLocalGit(lock.getWorkingCopy())) {
+			Repository gitRepo = git.getRepository();
+
+			sync(git, false, SYNC_SCOPE_TAGS);
+			String glob = namePattern == null || namePattern.isEmpty() ? "*" : namePattern;
+			return getTagIndex(gitRepo).getTags(gitRepo, Constants.R_TAGS + getGlobDirPrefix(glob), globToPattern(glob),
+					order == null ? GitTagOrder.NAME : order, limit);
+		} catch (GitAPIException e) {
+			throw new EVCSException(e);
 		} catch (Exception e) {
 			throw new RuntimeException(e);
 		}
 	}
-	
+
+	/**
+	 * @return literal part of the glob up to the last "/" before the first wildcard. Ref database could be queried by
+	 * directory prefixes only
+	 */
+	static String getGlobDirPrefix(String glob) {
+		int wildcardPos = StringUtils.indexOfAny(glob, '*', '?');
+		String literal = wildcardPos < 0 ? glob : glob.substring(0, wildcardPos);
+		return literal.substring(0, literal.lastIndexOf('/') + 1);
+	}
+
+	static Pattern globToPattern(String glob) {
+		StringBuilder sb = new StringBuilder();
+		StringBuilder literal = new StringBuilder();
+		for (char ch : glob.toCharArray()) {
+			if (ch == '*' || ch == '?') {
+				if (literal.length() > 0) {
+					sb.append(Pattern.quote(literal.toString()));
+					literal.setLength(0);
+				}
+				sb.append(ch == '*' ? ".*" : ".");
+			} else {
+				literal.append(ch);
+			}
+		}
+		if (literal.length() > 0) {
+			sb.append(Pattern.quote(literal.toString()));
+		}
+		return Pattern.compile(sb.toString());
+	}
+
 	@Override
 	public void removeTag(String tagName) {
-		try (IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
+		try (GitRepositoryLock lock = lockForWrite();
+			 IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
 			 Git git = getLocalGit(wc);
-			 Repository gitRepo = git.getRepository();
-			 RevWalk rw = new RevWalk(gitRepo)) {
+			 RevWalk rw = new RevWalk(git.getRepository())) {
 
-			pullAndFetch(git);
+			sync(git, true);
 
 			git
 					.tagDelete()
@@ -815,12 +2332,266 @@ public class GitVCS implements IVCS {
 		}
 	}
 
+	/**
+	 * Creates tags and pushes them within a single push. Each tag is created independently: existing tags are reported
+	 * as {@link EVCSTagExists} results, other tags are created anyway
+	 *
+	 * @param tagsRevisions tag name -> revision to tag. Null revision means head of the branch
+	 * @param tagMessage message of annotated tags. If null then unannotated tags are created
+	 * @return tag name -> created tag result in order of {@code tagsRevisions}
+	 */
+	public Map<String, GitBatchResult<VCSTag>> createTags(String branchName, Map<String, String> tagsRevisions,
+			String tagMessage) {
+		try (GitRepositoryLock lock = lockForWrite();
+			 IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
+			 Git git = getLocalGit(wc);
+			 RevWalk rw = new RevWalk(git.getRepository())) {
+			Repository gitRepo = git.getRepository();
+
+			String bn = getRealBranchName(branchName);
+			syncBranch(git, true, bn);
+			sync(git, true, SYNC_SCOPE_TAGS);
+
+			Map<String, GitBatchResult<VCSTag>> res = new LinkedHashMap<>();
+			Map<String, VCSTag> createdTags = new LinkedHashMap<>();
+			List<RefSpec> refSpecs = new ArrayList<>();
+			for (Map.Entry<String, String> entry : tagsRevisions.entrySet()) {
+				String tagName = entry.getKey();
+				try {
+					RevCommit commitToTag;
+					if (entry.getValue() == null) {
+						commitToTag = getRemoteHeadCommit(gitRepo, rw, bn);
+					} else {
+						fetchCommitIfMissing(git, ObjectId.fromString(entry.getValue()));
+						commitToTag = rw.parseCommit(ObjectId.fromString(entry.getValue()));
+					}
+					Ref ref = git
+							.tag()
+							.setAnnotated(tagMessage != null)
+							.setMessage(tagMessage)
+							.setName(tagName)
+							.setObjectId(commitToTag)
+							.call();
+					createdTags.put(REFS_TAGS + tagName, tagMessage == null ?
+							new VCSTag(tagName, null, null, getVCSCommit(commitToTag)) :
+							new VCSTag(tagName, tagMessage, rw.parseTag(ref.getObjectId()).getTaggerIdent().getName(),
+									getVCSCommit(commitToTag)));
+					refSpecs.add(new RefSpec(ref.getName()));
+				} catch (RefAlreadyExistsException e) {
+					res.put(tagName, GitBatchResult.failed(new EVCSTagExists(e)));
+				} catch (EVCSException e) {
+					res.put(tagName, GitBatchResult.failed(e));
+				} catch (Exception e) {
+					res.put(tagName, GitBatchResult.failed(new EVCSException(e)));
+				}
+			}
+
+			Map<String, RemoteRefUpdate> updates = getRemoteUpdates(pushAll(git, refSpecs));
+			for (String tagName : tagsRevisions.keySet()) {
+				VCSTag tag = createdTags.get(REFS_TAGS + tagName);
+				if (tag == null) {
+					continue;
+				}
+				RemoteRefUpdate update = updates.get(REFS_TAGS + tagName);
+				TransportException pushException = getPushException(update);
+				if (pushException == null) {
+					res.put(tagName, GitBatchResult.succeeded(tag));
+					continue;
+				}
+				// tag is not published so it is not kept locally
+				deleteRef(gitRepo, REFS_TAGS + tagName);
+				if (isRejected(update)) {
+					// tag is created concurrently
+					res.put(tagName, GitBatchResult.failed(new EVCSTagExists(pushException)));
+				} else {
+					res.put(tagName, GitBatchResult.failed(new EVCSException(pushException)));
+				}
+			}
+			return sortByKeys(res, tagsRevisions.keySet());
+		} catch (GitAPIException e) {
+			throw new EVCSException(e);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Removes tags within a single push. Tags which do not exist are considered as removed
+	 *
+	 * @return tag name -> removal result in order of {@code tagNames}
+	 */
+	public Map<String, GitBatchResult<Void>> removeTags(Collection<String> tagNames) {
+		try (GitRepositoryLock lock = lockForWrite();
+			 IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
+			 Git git = getLocalGit(wc)) {
+			Repository gitRepo = git.getRepository();
+
+			sync(git, true, SYNC_SCOPE_TAGS);
+			List<RefSpec> refSpecs = new ArrayList<>();
+			for (String tagName : tagNames) {
+				deleteRef(gitRepo, REFS_TAGS + tagName);
+				refSpecs.add(new RefSpec(":" + REFS_TAGS + tagName));
+			}
+			return getBatchResults(pushAll(git, refSpecs), REFS_TAGS, tagNames);
+		} catch (GitAPIException e) {
+			throw new EVCSException(e);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Creates branches from head of {@code srcBranchName} within a single push. Existing branches are reported as
+	 * {@link EVCSBranchExists} results, other branches are created anyway. Local branches are not created
+	 *
+	 * @return new branch name -> creation result in order of {@code newBranchNames}
+	 */
+	public Map<String, GitBatchResult<Void>> createBranches(String srcBranchName, Collection<String> newBranchNames) {
+		try (GitRepositoryLock lock = lockForWrite();
+			 IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
+			 Git git = getLocalGit(wc);
+			 RevWalk rw = new RevWalk(git.getRepository())) {
+			Repository gitRepo = git.getRepository();
+
+			String srcBn = getRealBranchName(srcBranchName);
+			syncBranch(git, true, srcBn);
+			RevCommit srcHeadCommit = getRemoteHeadCommit(gitRepo, rw, srcBn);
+			// existing branch which is behind the source head would be fast-forwarded by the push, so existing branches
+			// are not pushed at all. Branches created concurrently are rejected by remote since pushed refs are not forced
+			Set<String> existingRefNames = new HashSet<>();
+			for (Ref remoteRef : git
+					.lsRemote()
+					.setHeads(true)
+					.setCredentialsProvider(credentials)
+					.call()) {
+				existingRefNames.add(remoteRef.getName());
+			}
+			List<RefSpec> refSpecs = new ArrayList<>();
+			for (String newBranchName : newBranchNames) {
+				if (!existingRefNames.contains(REFS_HEADS + newBranchName)) {
+					refSpecs.add(new RefSpec(srcHeadCommit.getName() + ":" + REFS_HEADS + newBranchName));
+				}
+			}
+			Map<String, RemoteRefUpdate> updates = getRemoteUpdates(pushAll(git, refSpecs));
+			Map<String, GitBatchResult<Void>> res = new LinkedHashMap<>();
+			for (String newBranchName : newBranchNames) {
+				if (existingRefNames.contains(REFS_HEADS + newBranchName)) {
+					res.put(newBranchName, GitBatchResult.failed(new EVCSBranchExists(newBranchName)));
+					continue;
+				}
+				RemoteRefUpdate update = updates.get(REFS_HEADS + newBranchName);
+				TransportException pushException = getPushException(update);
+				if (pushException == null && update.getStatus() == RemoteRefUpdate.Status.OK) {
+					res.put(newBranchName, GitBatchResult.succeeded(null));
+				} else if (pushException == null || isRejected(update)) {
+					// up to date means the branch exists and points to the same commit already
+					res.put(newBranchName, GitBatchResult.failed(new EVCSBranchExists(newBranchName)));
+				} else {
+					res.put(newBranchName, GitBatchResult.failed(new EVCSException(pushException)));
+				}
+			}
+			return res;
+		} catch (EVCSBranchNotFound e) {
+			throw e;
+		} catch (GitAPIException e) {
+			throw new EVCSException(e);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * Deletes branches within a single push. Branches which do not exist are considered as deleted
+	 *
+	 * @return branch name -> deletion result in order of {@code branchNames}
+	 */
+	public Map<String, GitBatchResult<Void>> deleteBranches(Collection<String> branchNames) {
+		try (GitRepositoryLock lock = lockForWrite();
+			 IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
+			 Git git = getLocalGit(wc)) {
+			Repository gitRepo = git.getRepository();
+
+			String currentBranch = gitRepo.getFullBranch();
+			List<RefSpec> refSpecs = new ArrayList<>();
+			for (String branchName : branchNames) {
+				// checked out branch is kept locally to not touch the working tree. It is pruned by the next sync
+				if (!(REFS_HEADS + branchName).equals(currentBranch)) {
+					deleteRef(gitRepo, REFS_HEADS + branchName);
+				}
+				deleteRef(gitRepo, REFS_REMOTES_ORIGIN + branchName);
+				refSpecs.add(new RefSpec(":" + REFS_HEADS + branchName));
+			}
+			return getBatchResults(pushAll(git, refSpecs), REFS_HEADS, branchNames);
+		} catch (GitAPIException e) {
+			throw new EVCSException(e);
+		} catch (Exception e) {
+			throw new RuntimeException(e);
+		}
+	}
+
+	private Iterable<PushResult> pushAll(Git git, List<RefSpec> refSpecs) throws GitAPIException {
+		if (refSpecs.isEmpty()) {
+			return Collections.emptyList();
+		}
+		return push(git, refSpecs);
+	}
+
+	private Map<String, GitBatchResult<Void>> getBatchResults(Iterable<PushResult> pushResults, String refsPrefix,
+			Collection<String> names) {
+		Map<String, RemoteRefUpdate> updates = getRemoteUpdates(pushResults);
+		Map<String, GitBatchResult<Void>> res = new LinkedHashMap<>();
+		for (String name : names) {
+			RemoteRefUpdate update = updates.get(refsPrefix + name);
+			TransportException pushException = update == null || update.getStatus() == RemoteRefUpdate.Status.NON_EXISTING ?
+					null : getPushException(update);
+			res.put(name, pushException == null ?
+					GitBatchResult.<Void>succeeded(null) :
+					GitBatchResult.<Void>failed(new EVCSException(pushException)));
+		}
+		return res;
+	}
+
+	private Map<String, RemoteRefUpdate> getRemoteUpdates(Iterable<PushResult> pushResults) {
+		Map<String, RemoteRefUpdate> res = new HashMap<>();
+		for (PushResult pushResult : pushResults) {
+			for (RemoteRefUpdate update : pushResult.getRemoteUpdates()) {
+				res.put(update.getRemoteName(), update);
+			}
+		}
+		return res;
+	}
+
+	/**
+	 * @return true if the ref is not pushed because it exists on remote and points to another commit
+	 */
+	private boolean isRejected(RemoteRefUpdate update) {
+		return update != null && (update.getStatus() == RemoteRefUpdate.Status.REJECTED_NONFASTFORWARD
+				|| update.getStatus() == RemoteRefUpdate.Status.REJECTED_REMOTE_CHANGED);
+	}
+
+	private void deleteRef(Repository gitRepo, String refName) throws IOException {
+		if (gitRepo.exactRef(refName) != null) {
+			RefUpdate refUpdate = gitRepo.updateRef(refName);
+			refUpdate.setForceUpdate(true);
+			refUpdate.delete();
+		}
+	}
+
+	private <T> Map<String, GitBatchResult<T>> sortByKeys(Map<String, GitBatchResult<T>> results, Collection<String> keys) {
+		Map<String, GitBatchResult<T>> res = new LinkedHashMap<>();
+		for (String key : keys) {
+			res.put(key, results.get(key));
+		}
+		return res;
+	}
+
 	@Override
 	public void checkout(String branchName, String targetPath, String revision)  {
-		try (Git git = getLocalGit(targetPath);
-			 Repository gitRepo = git.getRepository()) {
+		try (GitRepositoryLock lock = lockForWrite();
+			 Git git = getLocalGit(targetPath)) {
+			Repository gitRepo = git.getRepository();
 			
-			checkout(git, gitRepo, branchName, revision);
+			checkout(git, gitRepo, branchName, revision, true);
 
 		} catch (GitAPIException e) {
 			throw new EVCSException(e);
@@ -831,35 +2602,21 @@ public class GitVCS implements IVCS {
 
 	@Override
 	public List<VCSTag> getTagsOnRevision(String revision) {
-		try (IVCSLockedWorkingCopy wc = repo.getVCSLockedWorkingCopy();
-			 Git git = getLocalGit(wc);
-			 Repository gitRepo = git.getRepository();
-			 RevWalk rw = new RevWalk(gitRepo)) {
+		try (GitRepositoryLock lock = lockForRead();
+			 Git git = getLocalGit(lock.getWorkingCopy())) {
+			Repository gitRepo = git.getRepository();
 
-			pullAndFetch(git);
+			sync(git, false, SYNC_SCOPE_TAGS);
 
-			List<VCSTag> res = new ArrayList<>();
-
-			// getAllRefsByPeeledObject does not work. Does not return newelly created tag
-			Collection<Ref> tagRefs = gitRepo.getTags().values();
-
-			RevCommit revCommit;
-			for (Ref ref : tagRefs) {
-				ObjectId relatedCommitObjectId = ref.getPeeledObjectId() == null ? ref.getObjectId() : ref.getPeeledObjectId();
-	        	revCommit = rw.parseCommit(relatedCommitObjectId);
-				if (revCommit.getName().equals(revision)) {
-					VCSCommit relatedCommit = getVCSCommit(revCommit);
-					RevObject revObject = rw.parseAny(ref.getObjectId());
-					if (revObject instanceof RevTag) {
-						RevTag revTag = (RevTag) revObject;
-						res.add(new VCSTag(revTag.getTagName(), revTag.getFullMessage(), revTag.getTaggerIdent().getName(), relatedCommit));
-					} else {
-						res.add(new VCSTag(ref.getName().replace(REFS_TAGS, ""), null, null, relatedCommit));
-					}
-				}
+			ObjectId commitId = revision == null ? null : gitRepo.resolve(revision);
+			if (commitId == null) {
+				return new ArrayList<>();
 			}
-			
-			return res;
+
+			// getAllRefsByPeeledObject does not work. Does not return newelly created tag. So own index is maintained
+			GitTagIndex tagIndex = getTagIndex(gitRepo);
+			tagIndex.update(gitRepo);
+			return tagIndex.getTags(gitRepo, commitId);
 		} catch (GitAPIException e) {
 			throw new EVCSException(e);
 		} catch (Exception e) {
@@ -1,11 +1,13 @@
 package org.scm4j.vcs;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
@@ -19,27 +21,53 @@ import java.net.ProxySelector;
 import java.net.SocketAddress;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
 
 import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.TrueFileFilter;
 import org.apache.commons.lang3.ArrayUtils;
 import org.eclipse.jgit.api.Git;
 import org.eclipse.jgit.api.errors.GitAPIException;
 import org.eclipse.jgit.diff.DiffEntry;
+import org.eclipse.jgit.lib.ObjectId;
 import org.eclipse.jgit.lib.Repository;
+import org.eclipse.jgit.revwalk.RevCommit;
+import org.eclipse.jgit.revwalk.RevWalk;
 import org.eclipse.jgit.transport.CredentialItem;
 import org.eclipse.jgit.transport.RefSpec;
+import org.eclipse.jgit.transport.RemoteConfig;
 import org.junit.After;
 import org.junit.Test;
 import org.mockito.Mockito;
 import org.mockito.exceptions.verification.WantedButNotInvoked;
 import org.scm4j.vcs.api.IVCS;
+import org.scm4j.vcs.api.VCSChangeListNode;
 import org.scm4j.vcs.api.VCSChangeType;
 import org.scm4j.vcs.api.VCSCommit;
+import org.scm4j.vcs.api.VCSDiffEntry;
+import org.scm4j.vcs.api.VCSMergeResult;
 import org.scm4j.vcs.api.VCSTag;
+import org.scm4j.vcs.api.WalkDirection;
 import org.scm4j.vcs.api.abstracttest.VCSAbstractTest;
+import org.scm4j.vcs.api.exceptions.EVCSBranchExists;
+import org.scm4j.vcs.api.exceptions.EVCSBranchNotFound;
 import org.scm4j.vcs.api.exceptions.EVCSException;
+import org.scm4j.vcs.api.exceptions.EVCSTagExists;
 import org.scm4j.vcs.api.workingcopy.IVCSLockedWorkingCopy;
 import org.scm4j.vcs.api.workingcopy.IVCSRepositoryWorkspace;
 import org.scm4j.vcs.api.workingcopy.IVCSWorkspace;
@@ -65,6 +93,7 @@ public class GitVCSTest extends VCSAbstractTest {
 	@After
 	public void tearDown() throws IOException {
 		localGitRepo.close();
+		GitVCS.closeRepositories();
 	    FileUtils.deleteDirectory(localGitRepo.getDirectory());
 		ProxySelector.setDefault(proxySelectorBackup);
 	}
@@ -345,5 +374,1015 @@ public class GitVCSTest extends VCSAbstractTest {
 		vcs.createTag(null, "tag", "tag desc", null);
 		assertEquals("tag", vcs.getTags().get(0).getTagName());
 	}
-}
 
+	@Test
+	public void testSyncPolicyOnDemand() throws Exception {
+		git.setSyncPolicy(GitSyncPolicy.ON_DEMAND);
+		vcs.getBranches(null); // working copy is cloned here
+		vcs.getTags();
+		vcs.getBranches(null);
+		Mockito.verify(git, Mockito.never()).fetch(Mockito.any(Git.class), Mockito.anyString());
+
+		git.sync();
+		vcs.getTags();
+		vcs.getTags();
+		Mockito.verify(git, Mockito.times(1)).fetch(Mockito.any(Git.class), Mockito.anyString());
+	}
+
+	@Test
+	public void testSyncPolicyPeriodic() throws Exception {
+		git.setSyncPolicy(GitSyncPolicy.PERIODIC);
+		git.setSyncIntervalMs(Long.MAX_VALUE);
+		vcs.getBranches(null);
+		vcs.getTags();
+		Mockito.verify(git, Mockito.never()).fetch(Mockito.any(Git.class), Mockito.anyString());
+
+		// write operations are always synced and make read operations to be synced again
+		vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		Mockito.verify(git, Mockito.times(1)).fetch(Mockito.any(Git.class), Mockito.anyString());
+		assertEquals(LINE_1, vcs.getFileContent(null, FILE1_NAME, null));
+		assertEquals(LINE_1, vcs.getFileContent(null, FILE1_NAME, null));
+		Mockito.verify(git, Mockito.times(2)).fetch(Mockito.any(Git.class), Mockito.anyString());
+	}
+
+	@Test
+	public void testRepositoryReuse() throws Exception {
+		Repository firstRepo;
+		try (Git git1 = this.git.getLocalGit(mockedLWC)) {
+			firstRepo = git1.getRepository();
+		}
+		try (Git git2 = this.git.getLocalGit(mockedLWC)) {
+			assertTrue(firstRepo == git2.getRepository());
+		}
+
+		GitVCS.closeRepositories();
+		try (Git git3 = this.git.getLocalGit(mockedLWC)) {
+			assertTrue(firstRepo != git3.getRepository());
+		}
+	}
+
+	@Test
+	public void testRepositoryPoolEviction() throws Exception {
+		final List<File> removedGitDirs = new ArrayList<>();
+		GitRepositoryPool pool = new GitRepositoryPool(new GitRepositoryPool.Listener() {
+			@Override
+			public void removed(File gitDir) {
+				removedGitDirs.add(gitDir);
+			}
+		});
+		pool.setIdleTimeoutMs(0);
+		File gitDir = new File(mockedLWC.getFolder(), ".git");
+		pool.open(gitDir).close();
+		// caches built from the idle repository are dropped along with it
+		assertEquals(0, pool.size());
+		assertEquals(Collections.singletonList(gitDir), removedGitDirs);
+	}
+
+	@Test
+	public void testGetFileContentDoesNotTouchWorkingTree() throws Exception {
+		VCSCommit c1 = vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		vcs.setFileContent(null, FILE1_NAME, LINE_2, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+		File wcFile = new File(mockedLWC.getFolder(), FILE1_NAME);
+		FileUtils.writeStringToFile(wcFile, LINE_3, StandardCharsets.UTF_8);
+		Mockito.reset(git);
+
+		assertEquals(LINE_1, vcs.getFileContent(null, FILE1_NAME, c1.getRevision()));
+		assertEquals(LINE_3, FileUtils.readFileToString(wcFile, StandardCharsets.UTF_8));
+		// existing commit is immutable so no sync is required
+		Mockito.verify(git, Mockito.never()).fetch(Mockito.any(Git.class), Mockito.anyString());
+	}
+
+	@Test
+	public void testGetFileContentByRefDoesNotTouchWorkingTree() throws Exception {
+		vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		File wcFile = new File(mockedLWC.getFolder(), FILE1_NAME);
+		// the working copy of vcs is behind the remote after changes made via another working copy
+		GitVCS otherVCS = new GitVCS(localVCSRepo);
+		otherVCS.setFileContent(null, FILE1_NAME, LINE_2, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+		otherVCS.createTag(null, TAG_NAME_1, "tag", null);
+		String shortId = otherVCS.getHeadCommit(null).getRevision().substring(0, 10);
+
+		assertEquals(LINE_2, vcs.getFileContent(null, FILE1_NAME, TAG_NAME_1));
+		assertEquals(LINE_1, FileUtils.readFileToString(wcFile, StandardCharsets.UTF_8));
+		assertEquals(LINE_2, vcs.getFileContent(null, FILE1_NAME, shortId));
+		assertEquals(LINE_1, FileUtils.readFileToString(wcFile, StandardCharsets.UTF_8));
+	}
+
+	@Test
+	public void testGetFileContentByHexTagAndBranch() throws Exception {
+		VCSCommit c1 = vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		assertEquals(LINE_1, vcs.getFileContent(null, FILE1_NAME, null));
+		GitVCS otherVCS = new GitVCS(localVCSRepo);
+		otherVCS.setFileContent(null, FILE1_NAME, LINE_2, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+		// tag name looks like an abbreviated commit id
+		otherVCS.createTag(null, "deadbeef", "tag", c1.getRevision());
+
+		assertEquals(LINE_1, vcs.getFileContent(null, FILE1_NAME, "deadbeef"));
+		// branch is resolved by the remote head, not by the outdated local branch
+		assertEquals(LINE_2, vcs.getFileContent(null, FILE1_NAME, "master"));
+	}
+
+	@Test
+	public void testGetFileContentStreaming() throws Exception {
+		VCSCommit c1 = vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		vcs.setFileContent(null, FILE1_NAME, LINE_2, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		git.getFileContent(null, FILE1_NAME, null, out);
+		assertEquals(LINE_2, out.toString("UTF-8"));
+		assertTrue(Arrays.equals(LINE_1.getBytes(StandardCharsets.UTF_8),
+				git.getFileContentBytes(null, FILE1_NAME, c1.getRevision())));
+	}
+
+	@Test
+	public void testFilesExist() throws Exception {
+		String folderName = "folder";
+		String fileInFolderName = folderName + "/file-in-folder.txt";
+		String absentFileName = "absent.txt";
+		vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		vcs.setFileContent(null, fileInFolderName, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+
+		Map<String, Boolean> res = git.filesExist(null, Arrays.asList(FILE1_NAME, absentFileName, fileInFolderName,
+				folderName, folderName + "/"));
+		assertEquals(5, res.size());
+		assertTrue(res.get(FILE1_NAME));
+		assertFalse(res.get(absentFileName));
+		assertTrue(res.get(fileInFolderName));
+		assertTrue(res.get(folderName));
+		assertTrue(res.get(folderName + "/"));
+		assertTrue(git.filesExist(null, Collections.<String>emptyList()).isEmpty());
+	}
+
+	@Test
+	public void testRootExists() throws Exception {
+		vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+
+		assertTrue(vcs.fileExists(null, ""));
+		assertTrue(vcs.fileExists(null, "/"));
+		Map<String, Boolean> res = git.filesExist(null, Arrays.asList("", "absent.txt"));
+		assertTrue(res.get(""));
+		assertFalse(res.get("absent.txt"));
+		try {
+			vcs.fileExists("unknown-branch", "");
+			fail();
+		} catch (EVCSBranchNotFound e) {
+		}
+	}
+
+	@Test
+	public void testGetFilesContent() throws Exception {
+		String fileInFolderName = "folder/file-in-folder.txt";
+		VCSCommit c1 = vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		vcs.setFileContent(null, fileInFolderName, LINE_2, FILE1_ADDED_COMMIT_MESSAGE);
+		vcs.setFileContent(null, FILE1_NAME, LINE_3, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+
+		Map<String, String> res = git.getFilesContent(null, Arrays.asList(FILE1_NAME, fileInFolderName, "absent.txt"), null);
+		assertEquals(2, res.size());
+		assertEquals(LINE_3, res.get(FILE1_NAME));
+		assertEquals(LINE_2, res.get(fileInFolderName));
+
+		res = git.getFilesContent(null, Arrays.asList(FILE1_NAME, fileInFolderName), c1.getRevision());
+		assertEquals(1, res.size());
+		assertEquals(LINE_1, res.get(FILE1_NAME));
+
+		// folders and the root are not files
+		res = git.getFilesContent(null, Arrays.asList("", "/", "folder", "folder/", fileInFolderName + "/"), null);
+		assertEquals(1, res.size());
+		assertEquals(LINE_2, res.get(fileInFolderName + "/"));
+	}
+
+	@Test
+	public void testSetFileContentInCore() throws Exception {
+		String fileInFolderName = "folder/file-in-folder.txt";
+		git.setInCore(true);
+		VCSCommit c1 = vcs.setFileContent(null, Arrays.asList(
+				new VCSChangeListNode(FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE),
+				new VCSChangeListNode(fileInFolderName, LINE_2, FILE1_ADDED_COMMIT_MESSAGE)));
+		assertFalse(new File(mockedLWC.getFolder(), FILE1_NAME).exists());
+		VCSCommit c2 = vcs.setFileContent(null, FILE1_NAME, LINE_3, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+
+		assertEquals(c2, vcs.getHeadCommit(null));
+		assertEquals(Arrays.asList(c2, c1), vcs.log(null, 2));
+		assertEquals(LINE_3, vcs.getFileContent(null, FILE1_NAME, null));
+		assertEquals(LINE_1, vcs.getFileContent(null, FILE1_NAME, c1.getRevision()));
+		assertEquals(LINE_2, vcs.getFileContent(null, fileInFolderName, null));
+	}
+
+	@Test
+	public void testMergeInCore() throws Exception {
+		vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		vcs.createBranch(null, NEW_BRANCH, CREATED_DST_BRANCH_COMMIT_MESSAGE);
+		vcs.setFileContent(NEW_BRANCH, FILE1_NAME, LINE_2, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+		git.setInCore(true);
+
+		// fast-forward
+		assertTrue(vcs.merge(NEW_BRANCH, null, "merged").getSuccess());
+		assertEquals(vcs.getHeadCommit(NEW_BRANCH), vcs.getHeadCommit(null));
+		// already merged
+		assertTrue(vcs.merge(NEW_BRANCH, null, "merged").getSuccess());
+
+		// merge commit
+		vcs.setFileContent(NEW_BRANCH, FILE1_NAME, LINE_3, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+		VCSCommit dstHead = vcs.setFileContent(null, "file2.txt", LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		assertTrue(vcs.merge(NEW_BRANCH, null, "merged").getSuccess());
+		VCSCommit mergeCommit = vcs.getHeadCommit(null);
+		assertEquals("merged", mergeCommit.getLogMessage());
+		assertEquals(Arrays.asList(mergeCommit, dstHead), vcs.log(null, 2));
+		assertEquals(LINE_3, vcs.getFileContent(null, FILE1_NAME, null));
+		assertEquals(LINE_1, vcs.getFileContent(null, "file2.txt", null));
+
+		// conflict
+		vcs.setFileContent(NEW_BRANCH, FILE1_NAME, LINE_1, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+		VCSCommit conflictingHead = vcs.setFileContent(null, FILE1_NAME, LINE_2, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+		VCSMergeResult res = vcs.merge(NEW_BRANCH, null, "merged");
+		assertFalse(res.getSuccess());
+		assertEquals(Collections.singletonList(FILE1_NAME), res.getConflictingFiles());
+		assertEquals(conflictingHead, vcs.getHeadCommit(null));
+		Mockito.verify(mockedLWC, Mockito.never()).setCorrupted(true);
+	}
+
+	@Test
+	public void testCheckMerge() throws Exception {
+		vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		vcs.createBranch(null, NEW_BRANCH, CREATED_DST_BRANCH_COMMIT_MESSAGE);
+		vcs.setFileContent(NEW_BRANCH, FILE1_NAME, LINE_2, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+		vcs.setFileContent(null, "file2.txt", LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		VCSCommit srcHead = vcs.getHeadCommit(NEW_BRANCH);
+
+		VCSMergeResult res = git.checkMerge(NEW_BRANCH, null);
+		assertTrue(res.getSuccess());
+		assertTrue(res.getConflictingFiles().isEmpty());
+		assertTrue(git.checkMerge(null, NEW_BRANCH).getSuccess());
+
+		vcs.setFileContent(null, FILE1_NAME, LINE_3, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+		VCSCommit dstHead = vcs.getHeadCommit(null);
+		res = git.checkMerge(NEW_BRANCH, null);
+		assertFalse(res.getSuccess());
+		assertEquals(Collections.singletonList(FILE1_NAME), res.getConflictingFiles());
+		// cached result is not affected by callers
+		res.getConflictingFiles().clear();
+		assertEquals(Collections.singletonList(FILE1_NAME), git.checkMerge(NEW_BRANCH, null).getConflictingFiles());
+
+		assertEquals(dstHead, vcs.getHeadCommit(null));
+		assertEquals(srcHead, vcs.getHeadCommit(NEW_BRANCH));
+		assertEquals(res.getSuccess(), vcs.merge(NEW_BRANCH, null, "merged").getSuccess());
+
+		try {
+			git.checkMerge("unknown-branch", null);
+			fail();
+		} catch (EVCSBranchNotFound e) {
+		}
+	}
+
+	@Test
+	public void testGetBranchesDiffInCore() throws Exception {
+		vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		vcs.createBranch(null, NEW_BRANCH, CREATED_DST_BRANCH_COMMIT_MESSAGE);
+		vcs.setFileContent(NEW_BRANCH, FILE1_NAME, LINE_2, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+		// conflicting change
+		vcs.setFileContent(null, FILE1_NAME, LINE_3, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+		String headBranch;
+		try (Git localGit = git.getLocalGit(mockedLWC)) {
+			Repository repo = localGit.getRepository();
+			headBranch = repo.getBranch();
+		}
+
+		List<VCSDiffEntry> diffs = vcs.getBranchesDiff(NEW_BRANCH, null);
+		assertEquals(1, diffs.size());
+		assertEquals(FILE1_NAME, diffs.get(0).getFilePath());
+		assertEquals(VCSChangeType.MODIFY, diffs.get(0).getChangeType());
+		assertTrue(diffs.get(0).getUnifiedDiff().contains("+" + LINE_2));
+
+		try (Git localGit = git.getLocalGit(mockedLWC)) {
+			Repository repo = localGit.getRepository();
+			assertEquals(headBranch, repo.getBranch());
+			assertTrue(localGit.status().call().isClean());
+		}
+	}
+
+	@Test
+	public void testGetBranchesDiffPaged() throws Exception {
+		vcs.createBranch(null, NEW_BRANCH, CREATED_DST_BRANCH_COMMIT_MESSAGE);
+		vcs.setFileContent(NEW_BRANCH, Arrays.asList(
+				new VCSChangeListNode("a.txt", LINE_1, FILE1_ADDED_COMMIT_MESSAGE),
+				new VCSChangeListNode("b.txt", LINE_2, FILE1_ADDED_COMMIT_MESSAGE),
+				new VCSChangeListNode("c.txt", LINE_3, FILE1_ADDED_COMMIT_MESSAGE)));
+
+		try (GitBranchesDiff diff = git.getBranchesDiff(NEW_BRANCH, null, 1, 1)) {
+			assertEquals(3, diff.getTotalCount());
+			assertEquals(1, diff.getEntries().size());
+			GitDiffEntry entry = diff.getEntries().get(0);
+			assertEquals("b.txt", entry.getFilePath());
+			assertEquals(VCSChangeType.ADD, entry.getChangeType());
+			assertTrue(entry.getUnifiedDiff().contains("+" + LINE_2));
+		}
+
+		try (GitBranchesDiff diff = git.getBranchesDiff(NEW_BRANCH, null, 2, 0)) {
+			assertEquals(1, diff.getEntries().size());
+			assertEquals("c.txt", diff.getEntries().get(0).getFilePath());
+		}
+
+		// read lock is not held by the open diff so it could be closed by another thread and writes are not blocked
+		git.setSharedReads(true);
+		final GitBranchesDiff diff = git.getBranchesDiff(NEW_BRANCH, null, 0, 0);
+		vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		assertTrue(diff.getEntries().get(2).getUnifiedDiff().contains("+" + LINE_3));
+		final List<Exception> closeExceptions = new ArrayList<>();
+		Thread closer = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					diff.close();
+				} catch (Exception e) {
+					closeExceptions.add(e);
+				}
+			}
+		});
+		closer.start();
+		closer.join();
+		assertTrue(closeExceptions.isEmpty());
+	}
+
+	@Test
+	public void testGetBranchesDiffRenames() throws Exception {
+		String content = LINE_1 + "\n" + LINE_2 + "\n" + LINE_3 + "\n";
+		vcs.setFileContent(null, FILE1_NAME, content, FILE1_ADDED_COMMIT_MESSAGE);
+		vcs.createBranch(null, NEW_BRANCH, CREATED_DST_BRANCH_COMMIT_MESSAGE);
+		vcs.removeFile(NEW_BRANCH, FILE1_NAME, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+		vcs.setFileContent(NEW_BRANCH, "renamed.txt", content, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+
+		assertEquals(2, vcs.getBranchesDiff(NEW_BRANCH, null).size());
+
+		git.setDetectRenames(true);
+		try (GitBranchesDiff diff = git.getBranchesDiff(NEW_BRANCH, null, 0, 0)) {
+			assertEquals(1, diff.getTotalCount());
+			GitDiffEntry entry = diff.getEntries().get(0);
+			assertEquals(DiffEntry.ChangeType.RENAME, entry.getGitChangeType());
+			assertEquals(VCSChangeType.UNKNOWN, entry.getChangeType());
+			assertEquals("renamed.txt", entry.getFilePath());
+			assertEquals(FILE1_NAME, entry.getOldFilePath());
+			assertEquals(100, entry.getScore());
+			assertFalse(entry.getUnifiedDiff().contains(LINE_1));
+		}
+	}
+
+	@Test
+	public void testGetTagsOnRevisionMovedTag() throws Exception {
+		VCSCommit c1 = vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		VCSCommit c2 = vcs.setFileContent(null, FILE1_NAME, LINE_2, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+		VCSTag tag = vcs.createTag(null, TAG_NAME_1, "tag message", c1.getRevision());
+		assertEquals(Arrays.asList(tag), vcs.getTagsOnRevision(c1.getRevision()));
+
+		vcs.removeTag(TAG_NAME_1);
+		assertTrue(vcs.getTagsOnRevision(c1.getRevision()).isEmpty());
+
+		tag = vcs.createTag(null, TAG_NAME_1, "tag message", c2.getRevision());
+		assertTrue(vcs.getTagsOnRevision(c1.getRevision()).isEmpty());
+		assertEquals(Arrays.asList(tag), vcs.getTagsOnRevision(c2.getRevision()));
+	}
+
+	@Test
+	public void testGetTagsCached() throws Exception {
+		VCSCommit c1 = vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		vcs.createTag(null, TAG_NAME_1, "tag message", c1.getRevision());
+		List<VCSTag> tags1 = vcs.getTags();
+
+		vcs.createTag(null, TAG_NAME_2, "tag message", c1.getRevision());
+		List<VCSTag> tags2 = vcs.getTags();
+		assertEquals(2, tags2.size());
+		// unchanged tag is not re-parsed
+		assertTrue(tags1.get(0) == tags2.get(0));
+		assertEquals(TAG_NAME_2, tags2.get(1).getTagName());
+	}
+
+	@Test
+	public void testGetTagsFiltered() throws Exception {
+		VCSCommit c1 = vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		vcs.createTag(null, "release/1.0", "tag message", c1.getRevision());
+		vcs.createTag(null, "release/1.1", "tag message", c1.getRevision());
+		vcs.createTag(null, "release/2.0", "tag message", c1.getRevision());
+		vcs.createTag(null, "other", "tag message", c1.getRevision());
+
+		List<VCSTag> tags = git.getTags("release/1.*", GitTagOrder.NAME, 0);
+		assertEquals(2, tags.size());
+		assertEquals("release/1.0", tags.get(0).getTagName());
+		assertEquals("release/1.1", tags.get(1).getTagName());
+		tags = git.getTags("release/1.*", GitTagOrder.NAME, 1);
+		assertEquals(1, tags.size());
+		assertEquals("release/1.0", tags.get(0).getTagName());
+
+		tags = git.getTags("release/?.0", null, 1);
+		assertEquals(1, tags.size());
+		assertEquals("release/1.0", tags.get(0).getTagName());
+
+		assertEquals(4, git.getTags(null, GitTagOrder.TAG_TIME, 0).size());
+		assertTrue(git.getTags("none*", GitTagOrder.COMMIT_TIME, 0).isEmpty());
+
+		assertEquals("release/", GitVCS.getGlobDirPrefix("release/1.*"));
+		assertEquals("", GitVCS.getGlobDirPrefix("rel*/1.0"));
+		assertEquals("a/b/", GitVCS.getGlobDirPrefix("a/b/c"));
+	}
+
+	@Test
+	public void testGetCommitsRangeBounded() throws Exception {
+		VCSCommit c1 = vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		VCSCommit c2 = vcs.setFileContent(null, FILE1_NAME, LINE_2, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+		VCSCommit c3 = vcs.setFileContent(null, FILE1_NAME, LINE_3, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+
+		assertEquals(Arrays.asList(c3, c2), vcs.getCommitsRange(null, null, WalkDirection.DESC, 2));
+		assertEquals(Arrays.asList(c2, c1), vcs.getCommitsRange(null, c2.getRevision(), WalkDirection.DESC, 2));
+		assertEquals(Arrays.asList(c2, c3), vcs.getCommitsRange(null, c2.getRevision(), WalkDirection.ASC, 0));
+		assertEquals(Arrays.asList(c2), vcs.getCommitsRange(null, c2.getRevision(), WalkDirection.ASC, 1));
+
+		// cached root commit is still valid after the branch head moves
+		List<VCSCommit> commits = git.getCommitsRange(null, null, null);
+		VCSCommit c4 = vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+		List<VCSCommit> commits2 = git.getCommitsRange(null, null, null);
+		assertEquals(commits.size() + 1, commits2.size());
+		assertEquals(c4, commits2.get(commits2.size() - 1));
+	}
+
+	@Test
+	public void testLogStreaming() throws Exception {
+		VCSCommit c1 = vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		VCSCommit c2 = vcs.setFileContent(null, FILE1_NAME, LINE_2, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+
+		final List<VCSCommit> commits = new ArrayList<>();
+		git.log(null, null, true, new Predicate<VCSCommit>() {
+			@Override
+			public boolean test(VCSCommit commit) {
+				commits.add(commit);
+				return commits.size() < 2;
+			}
+		});
+		assertEquals(Arrays.asList(c2, c1), commits);
+		assertEquals(FILE1_CONTENT_CHANGED_COMMIT_MESSAGE, commits.get(0).getLogMessage());
+
+		commits.clear();
+		git.log(null, c1.getRevision(), false, new Predicate<VCSCommit>() {
+			@Override
+			public boolean test(VCSCommit commit) {
+				return commits.add(commit);
+			}
+		});
+		assertEquals(c1.getRevision(), commits.get(0).getRevision());
+		assertNull(commits.get(0).getLogMessage());
+		assertEquals(vcs.log(null, 0).size() - 1, commits.size());
+	}
+
+	@Test
+	public void testCommitGraph() throws Exception {
+		VCSCommit c1 = vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		vcs.createBranch(null, NEW_BRANCH, CREATED_DST_BRANCH_COMMIT_MESSAGE);
+		VCSCommit c2 = vcs.setFileContent(null, FILE1_NAME, LINE_2, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+		VCSCommit c3 = vcs.setFileContent(NEW_BRANCH, "file2.txt", LINE_3, FILE1_ADDED_COMMIT_MESSAGE);
+		assertTrue(vcs.merge(NEW_BRANCH, null, "merged").getSuccess());
+		VCSCommit merge = vcs.getHeadCommit(null);
+
+		GitCommitGraph commitGraph = new GitCommitGraph();
+		try (IVCSLockedWorkingCopy wc = localVCSRepo.getVCSLockedWorkingCopy();
+			 Git localGit = git.getLocalGit(wc)) {
+			Repository gitRepo = localGit.getRepository();
+			ObjectId id1 = ObjectId.fromString(c1.getRevision());
+			ObjectId id2 = ObjectId.fromString(c2.getRevision());
+			ObjectId id3 = ObjectId.fromString(c3.getRevision());
+			ObjectId mergeId = ObjectId.fromString(merge.getRevision());
+			commitGraph.update(gitRepo, id2);
+			int size = commitGraph.size();
+			commitGraph.update(gitRepo, id3);
+			// known commits are not added again
+			assertEquals(size + 1, commitGraph.size());
+
+			assertTrue(commitGraph.isAncestor(id1, id2));
+			assertTrue(commitGraph.isAncestor(id1, id3));
+			assertFalse(commitGraph.isAncestor(id2, id3));
+			assertEquals(id1, commitGraph.getMergeBase(id2, id3));
+			assertEquals(id2, commitGraph.getMergeBase(id2, id2));
+			assertEquals(Arrays.asList(id3), commitGraph.getRange(id3, id2));
+			assertEquals(Arrays.asList(id2, id1), commitGraph.getRange(id2, commitGraph.getParents(id1)));
+
+			// merge commit
+			commitGraph.update(gitRepo, mergeId);
+			assertTrue(commitGraph.isAncestor(id3, mergeId));
+			assertEquals(id3, commitGraph.getMergeBase(mergeId, id3));
+			assertEquals(id2, commitGraph.getMergeBase(id2, mergeId));
+			List<ObjectId> range = commitGraph.getRange(mergeId, id1);
+			assertEquals(Arrays.asList(mergeId), commitGraph.getRange(mergeId, id2, id3));
+			assertTrue(commitGraph.getRange(id3, mergeId).isEmpty());
+			List<ObjectId> expected = new ArrayList<>();
+			try (RevWalk rw = new RevWalk(gitRepo)) {
+				rw.markStart(rw.parseCommit(mergeId));
+				rw.markUninteresting(rw.parseCommit(id1));
+				for (RevCommit commit : rw) {
+					expected.add(commit.copy());
+				}
+			}
+			assertEquals(expected.size(), range.size());
+			assertTrue(range.containsAll(expected));
+			// children are emitted before parents
+			for (int i = 0; i < range.size(); i++) {
+				for (ObjectId parent : commitGraph.getParents(range.get(i))) {
+					assertTrue(range.indexOf(parent) < 0 || range.indexOf(parent) > i);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testGetCommitsRangeWithoutCommitGraph() throws Exception {
+		VCSCommit c1 = vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		VCSCommit c2 = vcs.setFileContent(null, FILE1_NAME, LINE_2, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+		VCSCommit c3 = vcs.setFileContent(null, FILE1_NAME, LINE_3, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+
+		// the commit graph is not filled yet so the range is walked
+		assertEquals(Arrays.asList(c2, c3), vcs.getCommitsRange(null, c2.getRevision(), WalkDirection.ASC, 0));
+		assertEquals(Arrays.asList(c1), vcs.getCommitsRange(null, c1.getRevision(), WalkDirection.ASC, 1));
+		// the graph is filled by the full range
+		List<VCSCommit> all = vcs.getCommitsRange(null, null, WalkDirection.ASC, 0);
+		assertEquals(Arrays.asList(c1, c2, c3), all.subList(all.size() - 3, all.size()));
+		assertEquals(Arrays.asList(c2, c3), vcs.getCommitsRange(null, c2.getRevision(), WalkDirection.ASC, 0));
+	}
+
+	@Test
+	public void testSingleBranchPeriodicSync() throws Exception {
+		vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		vcs.createBranch(null, NEW_BRANCH, CREATED_DST_BRANCH_COMMIT_MESSAGE);
+		VCSCommit branchHead = vcs.setFileContent(NEW_BRANCH, FILE1_NAME, LINE_2, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+
+		// not tracked branch is fetched on demand although sync is not required. Each operation uses own working copy
+		try (IVCSLockedWorkingCopy lwc = localVCSRepo.getVCSLockedWorkingCopyTemp()) {
+			assertEquals(LINE_2, getPeriodicSingleBranchVCS(lwc).getFileContent(NEW_BRANCH, FILE1_NAME, null));
+		}
+		try (IVCSLockedWorkingCopy lwc = localVCSRepo.getVCSLockedWorkingCopyTemp()) {
+			assertTrue(getPeriodicSingleBranchVCS(lwc).fileExists(NEW_BRANCH, FILE1_NAME));
+		}
+		try (IVCSLockedWorkingCopy lwc = localVCSRepo.getVCSLockedWorkingCopyTemp()) {
+			assertEquals(branchHead, getPeriodicSingleBranchVCS(lwc).getHeadCommit(NEW_BRANCH));
+		}
+		try (IVCSLockedWorkingCopy lwc = localVCSRepo.getVCSLockedWorkingCopyTemp()) {
+			assertEquals(1, getPeriodicSingleBranchVCS(lwc).getBranchesDiff(NEW_BRANCH, null).size());
+		}
+		try (IVCSLockedWorkingCopy lwc = localVCSRepo.getVCSLockedWorkingCopyTemp()) {
+			assertTrue(getPeriodicSingleBranchVCS(lwc).checkMerge(NEW_BRANCH, null).getSuccess());
+		}
+	}
+
+	private GitVCS getPeriodicSingleBranchVCS(IVCSLockedWorkingCopy lwc) {
+		IVCSWorkspace tempWS = new VCSWorkspace(lwc.getFolder().toString());
+		GitVCS res = new GitVCS(tempWS.getVCSRepositoryWorkspace(vcs.getRepoUrl()));
+		res.setCloneMode(GitCloneMode.SINGLE_BRANCH);
+		res.setSyncPolicy(GitSyncPolicy.PERIODIC);
+		res.setSyncIntervalMs(Long.MAX_VALUE);
+		// working copy is cloned here
+		res.getHeadCommit(null);
+		return res;
+	}
+
+	@Test
+	public void testCloneModes() throws Exception {
+		vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		vcs.createBranch(null, NEW_BRANCH, CREATED_DST_BRANCH_COMMIT_MESSAGE);
+		vcs.setFileContent(NEW_BRANCH, FILE1_NAME, LINE_2, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+		vcs.createTag(null, TAG_NAME_1, "tag message", null);
+
+		try (IVCSLockedWorkingCopy lwc = localVCSRepo.getVCSLockedWorkingCopyTemp()) {
+			IVCSWorkspace tempWS = new VCSWorkspace(lwc.getFolder().toString());
+			GitVCS singleBranchVCS = new GitVCS(tempWS.getVCSRepositoryWorkspace(vcs.getRepoUrl()));
+			singleBranchVCS.setCloneMode(GitCloneMode.SINGLE_BRANCH);
+			assertEquals(LINE_1, singleBranchVCS.getFileContent(null, FILE1_NAME, null));
+			try (IVCSLockedWorkingCopy wc = tempWS.getVCSRepositoryWorkspace(vcs.getRepoUrl()).getVCSLockedWorkingCopy();
+				 Git localGit = singleBranchVCS.getLocalGit(wc)) {
+				Repository gitRepo = localGit.getRepository();
+				assertNull(gitRepo.exactRef("refs/remotes/origin/" + NEW_BRANCH));
+			}
+			assertTrue(singleBranchVCS.getBranches("").contains(NEW_BRANCH));
+			// not tracked branch is fetched on demand
+			assertEquals(LINE_2, singleBranchVCS.getFileContent(NEW_BRANCH, FILE1_NAME, null));
+			assertEquals(1, singleBranchVCS.getTags().size());
+		}
+
+		try (IVCSLockedWorkingCopy lwc = localVCSRepo.getVCSLockedWorkingCopyTemp()) {
+			IVCSWorkspace tempWS = new VCSWorkspace(lwc.getFolder().toString());
+			GitVCS noTagsVCS = new GitVCS(tempWS.getVCSRepositoryWorkspace(vcs.getRepoUrl()));
+			noTagsVCS.setCloneMode(GitCloneMode.NO_TAGS);
+			assertEquals(LINE_2, noTagsVCS.getFileContent(NEW_BRANCH, FILE1_NAME, null));
+			// tags are fetched by tag operations
+			assertEquals(TAG_NAME_1, noTagsVCS.getTags().get(0).getTagName());
+		}
+	}
+
+	@Test
+	public void testSingleBranchFetchedBranchTracked() throws Exception {
+		vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		vcs.createBranch(null, NEW_BRANCH, CREATED_DST_BRANCH_COMMIT_MESSAGE);
+
+		try (IVCSLockedWorkingCopy lwc = localVCSRepo.getVCSLockedWorkingCopyTemp()) {
+			IVCSWorkspace tempWS = new VCSWorkspace(lwc.getFolder().toString());
+			GitVCS singleBranchVCS = new GitVCS(tempWS.getVCSRepositoryWorkspace(vcs.getRepoUrl()));
+			singleBranchVCS.setCloneMode(GitCloneMode.SINGLE_BRANCH);
+			assertEquals(LINE_1, singleBranchVCS.getFileContent(null, FILE1_NAME, null));
+			// branch is fetched by the branch sync before the on demand fetch
+			assertEquals(LINE_1, singleBranchVCS.getFileContent(NEW_BRANCH, FILE1_NAME, null));
+			try (IVCSLockedWorkingCopy wc = tempWS.getVCSRepositoryWorkspace(vcs.getRepoUrl()).getVCSLockedWorkingCopy();
+				 Git localGit = singleBranchVCS.getLocalGit(wc)) {
+				RemoteConfig remoteConfig = new RemoteConfig(localGit.getRepository().getConfig(), "origin");
+				boolean isTracked = false;
+				for (RefSpec refSpec : remoteConfig.getFetchRefSpecs()) {
+					isTracked |= refSpec.matchSource("refs/heads/" + NEW_BRANCH);
+				}
+				assertTrue(isTracked);
+			}
+			// tracked branch is updated by the full sync
+			vcs.setFileContent(NEW_BRANCH, FILE1_NAME, LINE_2, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+			assertEquals(LINE_2, singleBranchVCS.getFileContent(NEW_BRANCH, FILE1_NAME, null));
+		}
+	}
+
+	@Test
+	public void testCloneModesOnDemandTags() throws Exception {
+		vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		vcs.createBranch(null, NEW_BRANCH, CREATED_DST_BRANCH_COMMIT_MESSAGE);
+		VCSCommit branchCommit = vcs.setFileContent(NEW_BRANCH, FILE1_NAME, LINE_2, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+		// tag of other branch history is not auto-followed by single branch working copy
+		vcs.createTag(NEW_BRANCH, TAG_NAME_1, "tag message", null);
+
+		for (GitCloneMode cloneMode : Arrays.asList(GitCloneMode.SINGLE_BRANCH, GitCloneMode.NO_TAGS)) {
+			// clone does not fetch all tags so tag operations fetch them regardless of the sync policy
+			try (IVCSLockedWorkingCopy lwc = localVCSRepo.getVCSLockedWorkingCopyTemp()) {
+				assertEquals(Collections.singletonList(TAG_NAME_1), getOnDemandVCS(lwc, cloneMode).getTagNames());
+			}
+			try (IVCSLockedWorkingCopy lwc = localVCSRepo.getVCSLockedWorkingCopyTemp()) {
+				assertEquals(TAG_NAME_1, getOnDemandVCS(lwc, cloneMode).getTags().get(0).getTagName());
+			}
+			try (IVCSLockedWorkingCopy lwc = localVCSRepo.getVCSLockedWorkingCopyTemp()) {
+				List<VCSTag> tags = getOnDemandVCS(lwc, cloneMode).getTagsOnRevision(branchCommit.getRevision());
+				assertEquals(TAG_NAME_1, tags.get(0).getTagName());
+			}
+		}
+	}
+
+	private GitVCS getOnDemandVCS(IVCSLockedWorkingCopy lwc, GitCloneMode cloneMode) {
+		IVCSWorkspace tempWS = new VCSWorkspace(lwc.getFolder().toString());
+		GitVCS res = new GitVCS(tempWS.getVCSRepositoryWorkspace(vcs.getRepoUrl()));
+		res.setCloneMode(cloneMode);
+		res.setSyncPolicy(GitSyncPolicy.ON_DEMAND);
+		// working copy is cloned here
+		res.getHeadCommit(null);
+		return res;
+	}
+
+	@Test
+	public void testCreateUnannotatedTagSingleBranch() throws Exception {
+		vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		vcs.createBranch(null, NEW_BRANCH, CREATED_DST_BRANCH_COMMIT_MESSAGE);
+		VCSCommit branchCommit = vcs.setFileContent(NEW_BRANCH, FILE1_NAME, LINE_2, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+
+		try (IVCSLockedWorkingCopy lwc = localVCSRepo.getVCSLockedWorkingCopyTemp()) {
+			IVCSWorkspace tempWS = new VCSWorkspace(lwc.getFolder().toString());
+			GitVCS singleBranchVCS = new GitVCS(tempWS.getVCSRepositoryWorkspace(vcs.getRepoUrl()));
+			singleBranchVCS.setCloneMode(GitCloneMode.SINGLE_BRANCH);
+			// commit of not tracked branch is fetched on demand
+			VCSTag tag = singleBranchVCS.createUnannotatedTag(null, TAG_NAME_1, branchCommit.getRevision());
+			assertEquals(branchCommit, tag.getRelatedCommit());
+		}
+		assertEquals(TAG_NAME_1, vcs.getTagsOnRevision(branchCommit.getRevision()).get(0).getTagName());
+	}
+
+	@Test
+	public void testCreateTagSingleBranch() throws Exception {
+		vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		vcs.createBranch(null, NEW_BRANCH, CREATED_DST_BRANCH_COMMIT_MESSAGE);
+		VCSCommit branchCommit = vcs.setFileContent(NEW_BRANCH, FILE1_NAME, LINE_2, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+
+		try (IVCSLockedWorkingCopy lwc = localVCSRepo.getVCSLockedWorkingCopyTemp()) {
+			IVCSWorkspace tempWS = new VCSWorkspace(lwc.getFolder().toString());
+			GitVCS singleBranchVCS = new GitVCS(tempWS.getVCSRepositoryWorkspace(vcs.getRepoUrl()));
+			singleBranchVCS.setCloneMode(GitCloneMode.SINGLE_BRANCH);
+			// commit of not tracked branch is fetched on demand
+			VCSTag tag = singleBranchVCS.createTag(null, TAG_NAME_1, "tag message", branchCommit.getRevision());
+			assertEquals(branchCommit, tag.getRelatedCommit());
+		}
+		assertEquals(TAG_NAME_1, vcs.getTagsOnRevision(branchCommit.getRevision()).get(0).getTagName());
+	}
+
+	@Test
+	public void testMirror() throws Exception {
+		vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		File mirrorsFolder = Files.createTempDirectory("gitmirrors").toFile();
+		try (IVCSLockedWorkingCopy lwc = localVCSRepo.getVCSLockedWorkingCopyTemp()) {
+			IVCSWorkspace tempWS = new VCSWorkspace(lwc.getFolder().toString());
+			GitVCS mirroredVCS = new GitVCS(tempWS.getVCSRepositoryWorkspace(vcs.getRepoUrl()));
+			mirroredVCS.setMirrorsFolder(mirrorsFolder.getPath());
+			assertEquals(LINE_1, mirroredVCS.getFileContent(null, FILE1_NAME, null));
+
+			vcs.setFileContent(null, FILE1_NAME, LINE_2, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+			vcs.createTag(null, TAG_NAME_1, "tag message", null);
+			assertEquals(LINE_2, mirroredVCS.getFileContent(null, FILE1_NAME, null));
+			// only the branch is fetched to the mirror
+			File[] mirrorDirs = mirrorsFolder.listFiles();
+			assertEquals(1, mirrorDirs.length);
+			try (Git mirrorGit = Git.open(mirrorDirs[0])) {
+				assertNotNull(mirrorGit.getRepository().exactRef("refs/heads/master"));
+				assertNull(mirrorGit.getRepository().exactRef("refs/tags/" + TAG_NAME_1));
+			}
+			assertEquals(TAG_NAME_1, mirroredVCS.getTags().get(0).getTagName());
+
+			try (IVCSLockedWorkingCopy wc = tempWS.getVCSRepositoryWorkspace(vcs.getRepoUrl()).getVCSLockedWorkingCopy()) {
+				File objectsDir = new File(wc.getFolder(), ".git/objects");
+				assertTrue(new File(objectsDir, "info/alternates").exists());
+				// all objects are fetched to the mirror
+				File[] packs = new File(objectsDir, "pack").listFiles();
+				assertTrue(packs == null || packs.length == 0);
+			}
+		} finally {
+			FileUtils.deleteDirectory(mirrorsFolder);
+		}
+	}
+
+	@Test
+	public void testMirrorSingleBranch() throws Exception {
+		vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		vcs.createBranch(null, NEW_BRANCH, CREATED_DST_BRANCH_COMMIT_MESSAGE);
+		vcs.setFileContent(NEW_BRANCH, FILE1_NAME, LINE_2, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+		vcs.createTag(null, TAG_NAME_1, "tag message", null);
+		File mirrorsFolder = Files.createTempDirectory("gitmirrors").toFile();
+		try (IVCSLockedWorkingCopy lwc = localVCSRepo.getVCSLockedWorkingCopyTemp()) {
+			IVCSWorkspace tempWS = new VCSWorkspace(lwc.getFolder().toString());
+			GitVCS mirroredVCS = new GitVCS(tempWS.getVCSRepositoryWorkspace(vcs.getRepoUrl()));
+			mirroredVCS.setCloneMode(GitCloneMode.SINGLE_BRANCH);
+			mirroredVCS.setMirrorsFolder(mirrorsFolder.getPath());
+			assertEquals(LINE_1, mirroredVCS.getFileContent(null, FILE1_NAME, null));
+			File mirrorDir = mirrorsFolder.listFiles()[0];
+			try (Git mirrorGit = Git.open(mirrorDir)) {
+				// refs not fetched by the working copy are not fetched to the mirror
+				assertNotNull(mirrorGit.getRepository().exactRef("refs/heads/master"));
+				assertNull(mirrorGit.getRepository().exactRef("refs/heads/" + NEW_BRANCH));
+				assertNull(mirrorGit.getRepository().exactRef("refs/tags/" + TAG_NAME_1));
+			}
+			assertEquals(LINE_2, mirroredVCS.getFileContent(NEW_BRANCH, FILE1_NAME, null));
+			try (Git mirrorGit = Git.open(mirrorDir)) {
+				// branch fetched on demand is fetched to the mirror
+				assertNotNull(mirrorGit.getRepository().exactRef("refs/heads/" + NEW_BRANCH));
+			}
+		} finally {
+			FileUtils.deleteDirectory(mirrorsFolder);
+		}
+	}
+
+	@Test
+	public void testTargetedSync() throws Exception {
+		vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		// changes made within other working copy
+		try (IVCSLockedWorkingCopy lwc = localVCSRepo.getVCSLockedWorkingCopyTemp()) {
+			IVCSWorkspace tempWS = new VCSWorkspace(lwc.getFolder().toString());
+			GitVCS tempVCS = new GitVCS(tempWS.getVCSRepositoryWorkspace(vcs.getRepoUrl()));
+			tempVCS.createBranch(null, NEW_BRANCH, CREATED_DST_BRANCH_COMMIT_MESSAGE);
+			tempVCS.setFileContent(null, FILE1_NAME, LINE_2, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+			tempVCS.createTag(null, TAG_NAME_1, "tag message", null);
+		}
+
+		assertEquals(LINE_2, vcs.getFileContent(null, FILE1_NAME, null));
+		try (Git localGit = git.getLocalGit(mockedLWC)) {
+			Repository gitRepo = localGit.getRepository();
+			// only the branch is fetched
+			assertNull(gitRepo.exactRef("refs/remotes/origin/" + NEW_BRANCH));
+			assertNull(gitRepo.exactRef("refs/tags/" + TAG_NAME_1));
+		}
+		assertEquals(1, vcs.getTags().size());
+		assertTrue(vcs.getBranches("").contains(NEW_BRANCH));
+		assertEquals(LINE_1, vcs.getFileContent(NEW_BRANCH, FILE1_NAME, null));
+
+		try (IVCSLockedWorkingCopy lwc = localVCSRepo.getVCSLockedWorkingCopyTemp()) {
+			IVCSWorkspace tempWS = new VCSWorkspace(lwc.getFolder().toString());
+			new GitVCS(tempWS.getVCSRepositoryWorkspace(vcs.getRepoUrl())).deleteBranch(NEW_BRANCH, "branch deleted");
+		}
+		try {
+			vcs.getFileContent(NEW_BRANCH, FILE1_NAME, null);
+			fail();
+		} catch (EVCSBranchNotFound e) {
+		}
+	}
+
+	@Test
+	public void testListRemoteRefs() throws Exception {
+		vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		vcs.createBranch(null, NEW_BRANCH, CREATED_DST_BRANCH_COMMIT_MESSAGE);
+		vcs.createTag(null, TAG_NAME_1, "tag message", null);
+		assertEquals(Arrays.asList(TAG_NAME_1), git.getTagNames());
+
+		try (IVCSLockedWorkingCopy lwc = localVCSRepo.getVCSLockedWorkingCopyTemp()) {
+			IVCSWorkspace tempWS = new VCSWorkspace(lwc.getFolder().toString());
+			GitVCS remoteVCS = new GitVCS(tempWS.getVCSRepositoryWorkspace(vcs.getRepoUrl()));
+			remoteVCS.setListRemoteRefs(true);
+			assertTrue(remoteVCS.getBranches("").containsAll(Arrays.asList("master", NEW_BRANCH)));
+			assertEquals(Arrays.asList(TAG_NAME_1), remoteVCS.getTagNames());
+
+			// remote changed outside of the JVM. Cached refs are returned until ttl expires
+			try (Git remoteGit = new Git(localGitRepo)) {
+				remoteGit.branchCreate().setName("other-branch").call();
+			}
+			assertFalse(remoteVCS.getBranches("").contains("other-branch"));
+			remoteVCS.setRemoteRefsTtlMs(0);
+			assertTrue(remoteVCS.getBranches("").contains("other-branch"));
+			// working copy is not created
+			Collection<File> files = FileUtils.listFilesAndDirs(lwc.getFolder(), TrueFileFilter.INSTANCE,
+					TrueFileFilter.INSTANCE);
+			for (File file : files) {
+				assertFalse(file.getName().equals(".git"));
+			}
+		}
+	}
+
+	@Test
+	public void testBatchTagsAndBranches() throws Exception {
+		VCSCommit c1 = vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		VCSCommit c2 = vcs.setFileContent(null, FILE1_NAME, LINE_2, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+		vcs.createTag(null, TAG_NAME_1, "tag message", c1.getRevision());
+
+		Map<String, String> tagsRevisions = new LinkedHashMap<>();
+		tagsRevisions.put(TAG_NAME_2, c1.getRevision());
+		tagsRevisions.put(TAG_NAME_1, c1.getRevision());
+		tagsRevisions.put(TAG_NAME_3, null);
+		Map<String, GitBatchResult<VCSTag>> tagResults = git.createTags(null, tagsRevisions, "batch tag");
+		assertEquals(new ArrayList<>(tagsRevisions.keySet()), new ArrayList<>(tagResults.keySet()));
+		assertEquals(c1, tagResults.get(TAG_NAME_2).get().getRelatedCommit());
+		assertTrue(tagResults.get(TAG_NAME_1).getException() instanceof EVCSTagExists);
+		assertEquals(c2, tagResults.get(TAG_NAME_3).get().getRelatedCommit());
+		assertEquals(3, vcs.getTags().size());
+
+		Map<String, GitBatchResult<Void>> removeResults = git.removeTags(Arrays.asList(TAG_NAME_2, TAG_NAME_3));
+		assertTrue(removeResults.get(TAG_NAME_2).isSucceeded());
+		assertTrue(removeResults.get(TAG_NAME_3).isSucceeded());
+		assertEquals(1, vcs.getTags().size());
+
+		vcs.createBranch(null, NEW_BRANCH, CREATED_DST_BRANCH_COMMIT_MESSAGE);
+		Map<String, GitBatchResult<Void>> createResults = git.createBranches(null,
+				Arrays.asList("batch-1", NEW_BRANCH, "batch-2"));
+		assertTrue(createResults.get("batch-1").isSucceeded());
+		assertTrue(createResults.get(NEW_BRANCH).getException() instanceof EVCSBranchExists);
+		assertTrue(createResults.get("batch-2").isSucceeded());
+		assertTrue(vcs.getBranches("").containsAll(Arrays.asList("batch-1", "batch-2")));
+		assertEquals(LINE_2, vcs.getFileContent("batch-2", FILE1_NAME, null));
+
+		Map<String, GitBatchResult<Void>> deleteResults = git.deleteBranches(Arrays.asList("batch-1", "batch-2"));
+		assertTrue(deleteResults.get("batch-1").isSucceeded());
+		assertTrue(deleteResults.get("batch-2").isSucceeded());
+		assertFalse(vcs.getBranches("").contains("batch-1"));
+		assertFalse(vcs.getBranches("").contains("batch-2"));
+	}
+
+	@Test
+	public void testBatchCreateExistingBranchBehind() throws Exception {
+		vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		vcs.createBranch(null, NEW_BRANCH, CREATED_DST_BRANCH_COMMIT_MESSAGE);
+		VCSCommit branchHead = vcs.getHeadCommit(NEW_BRANCH);
+		vcs.setFileContent(null, FILE1_NAME, LINE_2, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+
+		Map<String, GitBatchResult<Void>> createResults = git.createBranches(null, Arrays.asList(NEW_BRANCH, "batch-1"));
+		assertTrue(createResults.get(NEW_BRANCH).getException() instanceof EVCSBranchExists);
+		assertTrue(createResults.get("batch-1").isSucceeded());
+		// existing branch is not fast-forwarded
+		assertEquals(branchHead, vcs.getHeadCommit(NEW_BRANCH));
+		assertEquals(LINE_1, vcs.getFileContent(NEW_BRANCH, FILE1_NAME, null));
+	}
+
+	@Test
+	public void testBatchPushNotReported() throws Exception {
+		vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		// nothing is reported by remote, e.g. connection is lost
+		Mockito.doReturn(Collections.emptyList()).when(git).push(Mockito.any(Git.class), Mockito.anyList());
+
+		Map<String, GitBatchResult<VCSTag>> tagResults = git.createTags(null,
+				Collections.<String, String>singletonMap(TAG_NAME_1, null), null);
+		assertFalse(tagResults.get(TAG_NAME_1).getException() instanceof EVCSTagExists);
+		assertTrue(tagResults.get(TAG_NAME_1).getException() instanceof EVCSException);
+
+		Map<String, GitBatchResult<Void>> createResults = git.createBranches(null, Arrays.asList(NEW_BRANCH));
+		assertFalse(createResults.get(NEW_BRANCH).getException() instanceof EVCSBranchExists);
+		assertTrue(createResults.get(NEW_BRANCH).getException() instanceof EVCSException);
+
+		Mockito.doCallRealMethod().when(git).push(Mockito.any(Git.class), Mockito.anyList());
+		// failed tag is not kept locally
+		assertTrue(git.createTags(null, Collections.<String, String>singletonMap(TAG_NAME_1, null), null)
+				.get(TAG_NAME_1).isSucceeded());
+	}
+
+	@Test
+	public void testMergeAndRemoveFilePushDstBranchOnly() throws Exception {
+		vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		vcs.createBranch(null, NEW_BRANCH, CREATED_DST_BRANCH_COMMIT_MESSAGE);
+		vcs.setFileContent(NEW_BRANCH, FILE1_NAME, LINE_2, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+		try (Git localGit = git.getLocalGit(mockedLWC)) {
+			localGit.branchCreate().setName("local-only").call();
+		}
+
+		assertTrue(vcs.merge(NEW_BRANCH, null, "merged").getSuccess());
+		vcs.removeFile(null, FILE1_NAME, "file1 removed");
+		assertNull(localGitRepo.exactRef("refs/heads/local-only"));
+		assertFalse(vcs.fileExists(null, FILE1_NAME));
+	}
+
+	@Test
+	public void testSharedReads() throws Exception {
+		vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		git.setSharedReads(true);
+		final ExecutorService executor = Executors.newFixedThreadPool(2);
+		try {
+			final List<Future<VCSCommit>> writes = new ArrayList<>();
+			git.log(null, null, false, new Predicate<VCSCommit>() {
+				@Override
+				public boolean test(VCSCommit commit) {
+					try {
+						// running read does not block other reads
+						assertEquals(LINE_1, executor.submit(new Callable<String>() {
+							@Override
+							public String call() {
+								return vcs.getFileContent(null, FILE1_NAME, null);
+							}
+						}).get(10, TimeUnit.SECONDS));
+						// but blocks writes
+						writes.add(executor.submit(new Callable<VCSCommit>() {
+							@Override
+							public VCSCommit call() {
+								return vcs.setFileContent(null, FILE1_NAME, LINE_2,
+										FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+							}
+						}));
+						try {
+							writes.get(0).get(500, TimeUnit.MILLISECONDS);
+							fail();
+						} catch (TimeoutException e) {
+						}
+					} catch (Exception e) {
+						throw new RuntimeException(e);
+					}
+					return false;
+				}
+			});
+			VCSCommit commit = writes.get(0).get(10, TimeUnit.SECONDS);
+			assertEquals(commit, vcs.getHeadCommit(null));
+			assertEquals(LINE_2, vcs.getFileContent(null, FILE1_NAME, null));
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	@Test
+	public void testWriteWithinSharedRead() throws Exception {
+		vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		git.setSharedReads(true);
+		git.log(null, null, false, new Predicate<VCSCommit>() {
+			@Override
+			public boolean test(VCSCommit commit) {
+				try {
+					// read lock could not be upgraded
+					vcs.setFileContent(null, FILE1_NAME, LINE_2, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+					fail();
+				} catch (RuntimeException e) {
+					assertTrue(e.getCause() instanceof IllegalStateException);
+				}
+				return false;
+			}
+		});
+		// lock is released by the failed write
+		vcs.setFileContent(null, FILE1_NAME, LINE_2, FILE1_CONTENT_CHANGED_COMMIT_MESSAGE);
+		assertEquals(LINE_2, vcs.getFileContent(null, FILE1_NAME, null));
+	}
+
+	@Test
+	public void testIdleSharedWorkingCopyReleased() throws Exception {
+		vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		try (IVCSLockedWorkingCopy lwc = localVCSRepo.getVCSLockedWorkingCopyTemp()) {
+			IVCSWorkspace tempWS = new VCSWorkspace(lwc.getFolder().toString());
+			IVCSRepositoryWorkspace tempRepo = tempWS.getVCSRepositoryWorkspace(vcs.getRepoUrl());
+			GitVCS sharedReadsVCS = new GitVCS(tempRepo);
+			sharedReadsVCS.setSharedReads(true);
+			GitVCS.setRepositoryIdleTimeoutMs(0);
+			try {
+				assertEquals(LINE_1, sharedReadsVCS.getFileContent(null, FILE1_NAME, null));
+				// idle shared working copy is released by the next operation
+				vcs.getHeadCommit(null);
+				try (IVCSLockedWorkingCopy wc = tempRepo.getVCSLockedWorkingCopy()) {
+					assertTrue(new File(wc.getFolder(), ".git").exists());
+				}
+			} finally {
+				GitVCS.setRepositoryIdleTimeoutMs(GitRepositoryPool.DEFAULT_IDLE_TIMEOUT_MS);
+			}
+		}
+	}
+
+	@Test
+	public void testSharedReadsWorkspaces() throws Exception {
+		vcs.setFileContent(null, FILE1_NAME, LINE_1, FILE1_ADDED_COMMIT_MESSAGE);
+		git.setSharedReads(true);
+		assertEquals(LINE_1, git.getFileContent(null, FILE1_NAME, null));
+		try (IVCSLockedWorkingCopy lwc = localVCSRepo.getVCSLockedWorkingCopyTemp()) {
+			IVCSWorkspace tempWS = new VCSWorkspace(lwc.getFolder().toString());
+			GitVCS otherWorkspaceVCS = new GitVCS(tempWS.getVCSRepositoryWorkspace(vcs.getRepoUrl()));
+			otherWorkspaceVCS.setSharedReads(true);
+			assertEquals(LINE_1, otherWorkspaceVCS.getFileContent(null, FILE1_NAME, null));
+			// working copy shared within the other workspace is used
+			assertFalse(FileUtils.listFiles(lwc.getFolder(), null, true).isEmpty());
+		}
+	}
+}